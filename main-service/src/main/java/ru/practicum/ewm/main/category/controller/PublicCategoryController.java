@@ -1,5 +1,6 @@
 package ru.practicum.ewm.main.category.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
@@ -7,6 +8,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewm.main.category.dto.CategoryDto;
 import ru.practicum.ewm.main.category.service.CategoryService;
+import ru.practicum.ewm.main.pagination.Cursors;
 
 import java.util.List;
 
@@ -25,7 +27,12 @@ public class PublicCategoryController {
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
     public List<CategoryDto> findAllCategories(@RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                               @RequestParam(defaultValue = "10") @Positive int size) {
+                                               @RequestParam(defaultValue = "10") @Positive int size,
+                                               @RequestParam(required = false) String cursor,
+                                               HttpServletResponse response) {
+        if (cursor != null) {
+            return Cursors.writeNextCursor(categoryService.findAllCategories(cursor, size), response);
+        }
         return categoryService.findAllCategories(from, size);
     }
 }
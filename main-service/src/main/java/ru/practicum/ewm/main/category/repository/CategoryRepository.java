@@ -1,7 +1,25 @@
 package ru.practicum.ewm.main.category.repository;
 
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.ewm.main.category.dto.CategoryDto;
 import ru.practicum.ewm.main.category.model.Category;
 
+import java.util.Optional;
+
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+    /**
+     * Категория для чтения и ссылок из событий. Кэш хранит DTO, CategoryServiceImpl обновляет его
+     * при изменении и сбрасывает при удалении
+     */
+    @Cacheable(cacheNames = "categories", unless = "#result == null")
+    @Query("SELECT new ru.practicum.ewm.main.category.dto.CategoryDto(c.id, c.name) FROM Category c WHERE c.id = :catId")
+    Optional<CategoryDto> findCachedById(long catId);
+
+    Window<Category> findAllBy(ScrollPosition position, Sort sort, Limit limit);
 }
@@ -2,6 +2,7 @@ package ru.practicum.ewm.main.category.service;
 
 import ru.practicum.ewm.main.category.dto.CategoryDto;
 import ru.practicum.ewm.main.category.dto.NewCategoryDto;
+import ru.practicum.ewm.main.pagination.CursorPage;
 
 import java.util.List;
 
@@ -15,4 +16,6 @@ public interface CategoryService {
     CategoryDto findCategoryById(long catId);
 
     List<CategoryDto> findAllCategories(int from, int size);
+
+    CursorPage<CategoryDto> findAllCategories(String cursor, int size);
 }
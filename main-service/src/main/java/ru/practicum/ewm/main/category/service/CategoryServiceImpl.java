@@ -3,15 +3,21 @@ package ru.practicum.ewm.main.category.service;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
-import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.main.category.dto.CategoryDto;
 import ru.practicum.ewm.main.category.dto.NewCategoryDto;
+import ru.practicum.ewm.main.category.mapper.CategoryMapper;
 import ru.practicum.ewm.main.category.model.Category;
 import ru.practicum.ewm.main.category.repository.CategoryRepository;
 import ru.practicum.ewm.main.exception.type.NotFoundException;
+import ru.practicum.ewm.main.pagination.CursorPage;
+import ru.practicum.ewm.main.pagination.Cursors;
 
 import java.util.List;
 
@@ -21,22 +27,27 @@ import java.util.List;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class CategoryServiceImpl implements CategoryService {
     CategoryRepository categoryRepository;
-    ModelMapper modelMapper;
 
     @Override
     public CategoryDto addCategory(NewCategoryDto newCategoryDto) {
-        return modelMapper.map(categoryRepository.save(modelMapper.map(newCategoryDto, Category.class)), CategoryDto.class);
+        return CategoryMapper.mapToCategoryDto(categoryRepository.save(CategoryMapper.mapToCategory(newCategoryDto)));
     }
 
+    /**
+     * Новое значение кладется в тот же кэш, из которого читают findCategoryById и события,
+     * после фиксации транзакции
+     */
     @Override
+    @CachePut(cacheNames = "categories", key = "#catId")
     public CategoryDto updateCategoryById(long catId, NewCategoryDto newCategoryDto) {
         findCategory(catId);
-        Category categoryToUpdate = modelMapper.map(newCategoryDto, Category.class);
+        Category categoryToUpdate = CategoryMapper.mapToCategory(newCategoryDto);
         categoryToUpdate.setId(catId);
-        return modelMapper.map(categoryRepository.save(categoryToUpdate), CategoryDto.class);
+        return CategoryMapper.mapToCategoryDto(categoryRepository.save(categoryToUpdate));
     }
 
     @Override
+    @CacheEvict(cacheNames = "categories", key = "#catId")
     public void deleteCategoryById(long catId) {
         findCategory(catId);
         categoryRepository.deleteById(catId);
@@ -45,7 +56,8 @@ public class CategoryServiceImpl implements CategoryService {
     @Override
     @Transactional(readOnly = true)
     public CategoryDto findCategoryById(long catId) {
-        return modelMapper.map(findCategory(catId), CategoryDto.class);
+        return categoryRepository.findCachedById(catId)
+                .orElseThrow(() -> new NotFoundException("Category with id=" + catId + " was not found"));
     }
 
     @Override
@@ -53,10 +65,18 @@ public class CategoryServiceImpl implements CategoryService {
     public List<CategoryDto> findAllCategories(int from, int size) {
         PageRequest page = PageRequest.of(from, size);
         return categoryRepository.findAll(page).stream()
-                .map(o -> modelMapper.map(o, CategoryDto.class))
+                .map(CategoryMapper::mapToCategoryDto)
                 .toList();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<CategoryDto> findAllCategories(String cursor, int size) {
+        Sort sort = Sort.by("id");
+        return Cursors.toPage(categoryRepository.findAllBy(Cursors.decode(cursor, sort), sort, Limit.of(size)),
+                CategoryMapper::mapToCategoryDto);
+    }
+
     private Category findCategory(long catId) {
         return categoryRepository.findById(catId)
                 .orElseThrow(() -> new NotFoundException("Category with id=" + catId + " was not found"));
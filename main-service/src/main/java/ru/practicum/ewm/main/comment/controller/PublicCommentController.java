@@ -1,5 +1,6 @@
 package ru.practicum.ewm.main.comment.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
@@ -7,6 +8,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewm.main.comment.dto.CommentFullDto;
 import ru.practicum.ewm.main.comment.service.CommentService;
+import ru.practicum.ewm.main.pagination.Cursors;
 
 import java.util.List;
 
@@ -27,7 +29,12 @@ public class PublicCommentController {
     @ResponseStatus(HttpStatus.OK)
         public List<CommentFullDto> findAllEventComments(@RequestParam long eventId,
                                                      @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                     @RequestParam(defaultValue = "10") @Positive int size) {
+                                                     @RequestParam(defaultValue = "10") @Positive int size,
+                                                     @RequestParam(required = false) String cursor,
+                                                     HttpServletResponse response) {
+        if (cursor != null) {
+            return Cursors.writeNextCursor(commentService.findAllEventComments(eventId, cursor, size), response);
+        }
         return commentService.findAllEventComments(eventId, from, size);
     }
 }
@@ -1,7 +1,14 @@
 package ru.practicum.ewm.main.comment.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.main.comment.model.Comment;
 
 import java.util.List;
@@ -9,9 +16,9 @@ import java.util.List;
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findAllByEventId(long eventId, PageRequest page);
 
-    void deleteAllByEventId(long eventId);
+    Window<Comment> findAllByEventId(long eventId, ScrollPosition position, Sort sort, Limit limit);
 
-    long countByEventId(long eventId);
-
-    List<Comment> findByEventIdIn(List<Long> eventIds);
+    @Modifying
+    @Query("DELETE FROM Comment c WHERE c.event.id = :eventId")
+    int deleteAllByEventId(@Param("eventId") long eventId);
 }
@@ -3,6 +3,7 @@ package ru.practicum.ewm.main.comment.service;
 import ru.practicum.ewm.main.comment.dto.CommentFullDto;
 import ru.practicum.ewm.main.comment.dto.NewCommentDto;
 import ru.practicum.ewm.main.comment.dto.UpdateCommentDto;
+import ru.practicum.ewm.main.pagination.CursorPage;
 
 import java.util.List;
 
@@ -17,6 +18,8 @@ public interface CommentService {
 
     List<CommentFullDto> findAllEventComments(long eventId, int from, int size);
 
+    CursorPage<CommentFullDto> findAllEventComments(long eventId, String cursor, int size);
+
     void deleteCommentAdmin(long commentId);
 
     void deleteComment(long userId, long eventId, long commentId);
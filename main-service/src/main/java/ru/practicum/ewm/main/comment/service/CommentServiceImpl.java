@@ -3,7 +3,9 @@ package ru.practicum.ewm.main.comment.service;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.main.comment.dto.CommentFullDto;
@@ -17,8 +19,11 @@ import ru.practicum.ewm.main.event.model.State;
 import ru.practicum.ewm.main.event.repository.EventRepository;
 import ru.practicum.ewm.main.exception.type.BadRequestException;
 import ru.practicum.ewm.main.exception.type.NotFoundException;
+import ru.practicum.ewm.main.pagination.CursorPage;
+import ru.practicum.ewm.main.pagination.Cursors;
 import ru.practicum.ewm.main.request.model.Status;
 import ru.practicum.ewm.main.request.repository.RequestRepository;
+import ru.practicum.ewm.main.user.UserMapper;
 import ru.practicum.ewm.main.user.model.User;
 import ru.practicum.ewm.main.user.repository.UserRepository;
 
@@ -40,7 +45,9 @@ public class CommentServiceImpl implements CommentService {
         User user = receiveUser(userId);
         Event event = receiveEvent(eventId);
         checkValidEventStatusAndRequester(event, user);
-        return CommentMapper.mapToCommentFullDto(commentRepository.save(CommentMapper.mapToComment(event, user, newCommentDto)));
+        Comment comment = commentRepository.save(CommentMapper.mapToComment(event, user, newCommentDto));
+        eventRepository.addComments(eventId, 1);
+        return CommentMapper.mapToCommentFullDto(comment);
     }
 
     @Override
@@ -73,9 +80,17 @@ public class CommentServiceImpl implements CommentService {
         return commentRepository.findAllByEventId(eventId, page).stream().map(CommentMapper::mapToCommentFullDto).toList();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<CommentFullDto> findAllEventComments(long eventId, String cursor, int size) {
+        Sort sort = Sort.by("id");
+        return Cursors.toPage(commentRepository.findAllByEventId(eventId, Cursors.decode(cursor, sort), sort,
+                Limit.of(size)), CommentMapper::mapToCommentFullDto);
+    }
+
     @Override
     public void deleteCommentAdmin(long commentId) {
-        commentRepository.deleteById(commentId);
+        commentRepository.findById(commentId).ifPresent(this::removeComment);
     }
 
     @Override
@@ -84,12 +99,17 @@ public class CommentServiceImpl implements CommentService {
         Event event = receiveEvent(eventId);
         Comment comment = receiveComment(commentId);
         checkValidRequester(event, user, comment);
-        commentRepository.deleteById(commentId);
+        removeComment(comment);
     }
 
     @Override
     public void deleteAllEventCommentsAdmin(long eventId) {
-        commentRepository.deleteAllByEventId(eventId);
+        eventRepository.addComments(eventId, -commentRepository.deleteAllByEventId(eventId));
+    }
+
+    private void removeComment(Comment comment) {
+        commentRepository.delete(comment);
+        eventRepository.addComments(comment.getEvent().getId(), -1);
     }
 
     private void checkValidEventStatusAndRequester(Event event, User user) {
@@ -97,7 +117,7 @@ public class CommentServiceImpl implements CommentService {
             throw new BadRequestException("Event with id=" + event.getId() + " must be published");
         }
         if (event.isRequestModeration() || event.getParticipantLimit() != 0) {
-            if (!event.getInitiator().equals(user) && requestRepository.findByRequesterIdAndEventId(user.getId(), event.getId())
+            if (event.getInitiator().getId() != user.getId() && requestRepository.findByRequesterIdAndEventId(user.getId(), event.getId())
                     .filter(o -> o.getStatus() == Status.CONFIRMED).isEmpty()) {
                 throw new BadRequestException("User with id=" + user.getId() + " cannot work with comments");
             }
@@ -105,7 +125,7 @@ public class CommentServiceImpl implements CommentService {
     }
 
     private void checkValidRequester(Event event, User user, Comment comment) {
-        if (!comment.getAuthor().equals(user) && !event.getInitiator().equals(user)) {
+        if (comment.getAuthor().getId() != user.getId() && event.getInitiator().getId() != user.getId()) {
             throw new BadRequestException("User " + user.getId() + " cannot delete a comment " + comment.getId() + " that is not his own.");
         }
     }
@@ -116,7 +136,8 @@ public class CommentServiceImpl implements CommentService {
     }
 
     private User receiveUser(long userId) {
-        return userRepository.findById(userId)
+        return userRepository.findCachedById(userId)
+                .map(UserMapper::mapToUser)
                 .orElseThrow(() -> new NotFoundException("User with id=" + userId + " was not found"));
     }
 
@@ -0,0 +1,21 @@
+package ru.practicum.ewm.main.compilation.mapper;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.practicum.ewm.main.compilation.dto.CompilationDto;
+import ru.practicum.ewm.main.compilation.model.Compilation;
+import ru.practicum.ewm.main.event.dto.EventShortDto;
+
+import java.util.List;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class CompilationMapper {
+    public static CompilationDto mapToCompilationDto(Compilation compilation, List<EventShortDto> events) {
+        return CompilationDto.builder()
+                .id(compilation.getId())
+                .title(compilation.getTitle())
+                .pinned(compilation.isPinned())
+                .events(events)
+                .build();
+    }
+}
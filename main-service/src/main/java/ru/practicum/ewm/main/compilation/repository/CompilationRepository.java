@@ -1,6 +1,6 @@
 package ru.practicum.ewm.main.compilation.repository;
 
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.ewm.main.compilation.model.Compilation;
@@ -9,8 +9,21 @@ import java.util.List;
 
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
 
-    @Query("select c " +
+    @Query("select c.id " +
             "from Compilation c " +
-            "where ?1 is null or c.pinned = ?1")
-    List<Compilation> findAllByPinned(Boolean pinned, PageRequest pageRequest);
+            "where ?1 is null or c.pinned = ?1 " +
+            "order by c.id")
+    List<Long> findIdsByPinned(Boolean pinned, Pageable pageable);
+
+    /**
+     * Подборки вместе с событиями, их категориями и инициаторами одним запросом
+     */
+    @Query("select distinct c " +
+            "from Compilation c " +
+            "left join fetch c.events e " +
+            "left join fetch e.category " +
+            "left join fetch e.initiator " +
+            "where c.id in ?1 " +
+            "order by c.id")
+    List<Compilation> findAllWithEventsByIdIn(List<Long> ids);
 }
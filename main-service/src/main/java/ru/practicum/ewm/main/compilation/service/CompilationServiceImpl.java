@@ -3,7 +3,8 @@ package ru.practicum.ewm.main.compilation.service;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
-import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,13 +12,23 @@ import ru.practicum.ewm.main.compilation.dto.CompilationDto;
 import ru.practicum.ewm.main.compilation.dto.GetCompilationsParams;
 import ru.practicum.ewm.main.compilation.dto.NewCompilationDto;
 import ru.practicum.ewm.main.compilation.dto.PatchCompilationDto;
+import ru.practicum.ewm.main.compilation.mapper.CompilationMapper;
 import ru.practicum.ewm.main.compilation.model.Compilation;
 import ru.practicum.ewm.main.compilation.repository.CompilationRepository;
-import ru.practicum.ewm.main.event.dto.EventShortDto;
+import ru.practicum.ewm.main.event.mapper.EventMapper;
 import ru.practicum.ewm.main.event.model.Event;
 import ru.practicum.ewm.main.event.repository.EventRepository;
+import ru.practicum.ewm.main.event.service.EventViewsCache;
+import ru.practicum.ewm.main.exception.type.NotFoundException;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -26,40 +37,51 @@ import java.util.List;
 public class CompilationServiceImpl implements CompilationService {
     final CompilationRepository compilationRepository;
     final EventRepository eventRepository;
-    final ModelMapper modelMapper;
+    final EventViewsCache eventViewsCache;
 
     @Override
+    @CacheEvict(cacheNames = "pinnedCompilations", allEntries = true)
     public CompilationDto addCompilation(NewCompilationDto newCompilationDto) {
-        Compilation compilation = modelMapper.map(newCompilationDto, Compilation.class);
-        if (compilation.getEvents() != null) {
-            for (Long eventId : newCompilationDto.getEvents()) {
-                compilation.getEvents().add(new Event(eventId));
-            }
-        }
-        // сохранение подборки
+        Compilation compilation = new Compilation();
+        compilation.setTitle(newCompilationDto.getTitle());
+        compilation.setPinned(newCompilationDto.isPinned());
+        compilation.setEvents(receiveEvents(newCompilationDto.getEvents()));
         compilation = compilationRepository.save(compilation);
-        return getCompilationDto(compilation);
+        return mapToCompilationDtos(List.of(compilation)).getFirst();
     }
 
     @Override
     @Transactional(readOnly = true)
     public CompilationDto getCompilation(Long compId) {
-        Compilation compilation = compilationRepository.findById(compId).orElseThrow();
-        return getCompilationDto(compilation);
+        List<Compilation> compilations = compilationRepository.findAllWithEventsByIdIn(List.of(compId));
+        if (compilations.isEmpty()) {
+            throw new NotFoundException("Compilation with id=" + compId + " was not found");
+        }
+        return mapToCompilationDtos(compilations).getFirst();
     }
 
+    /**
+     * Закрепленные подборки кэшируются. Кэш сбрасывается при изменении подборок и событий,
+     * счетчики и просмотры событий в нем отстают не больше чем на время жизни записи
+     */
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = "pinnedCompilations", key = "#params", condition = "#params.pinned == true")
     public List<CompilationDto> getCompilations(GetCompilationsParams params) {
         PageRequest pageRequest = PageRequest.of(params.getFrom(), params.getSize());
-        return compilationRepository.findAll(pageRequest).stream()
-                .map(compilation -> modelMapper.map(compilation, CompilationDto.class))
-                .toList();
+        List<Long> ids = compilationRepository.findIdsByPinned(params.getPinned(), pageRequest);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return mapToCompilationDtos(compilationRepository.findAllWithEventsByIdIn(ids));
     }
 
     @Override
+    @CacheEvict(cacheNames = "pinnedCompilations", allEntries = true)
     public CompilationDto updateCompilation(PatchCompilationDto patchCompilationDto) {
-        Compilation compilation = compilationRepository.findById(patchCompilationDto.getId()).orElseThrow();
+        Compilation compilation = compilationRepository.findById(patchCompilationDto.getId())
+                .orElseThrow(() -> new NotFoundException("Compilation with id=" + patchCompilationDto.getId() +
+                        " was not found"));
         if (patchCompilationDto.getTitle() != null) {
             compilation.setTitle(patchCompilationDto.getTitle());
         }
@@ -67,21 +89,44 @@ public class CompilationServiceImpl implements CompilationService {
             compilation.setPinned(patchCompilationDto.getPinned());
         }
         if (patchCompilationDto.getEvents() != null) {
-            compilation.setEvents(eventRepository.findByIdIn(patchCompilationDto.getEvents().stream().toList()));
+            compilation.setEvents(receiveEvents(patchCompilationDto.getEvents()));
         }
         compilation = compilationRepository.save(compilation);
-        return modelMapper.map(compilation, CompilationDto.class);
+        return mapToCompilationDtos(List.of(compilation)).getFirst();
     }
 
     @Override
+    @CacheEvict(cacheNames = "pinnedCompilations", allEntries = true)
     public void deleteCompilationById(long compId) {
         compilationRepository.deleteById(compId);
     }
 
-    private CompilationDto getCompilationDto(Compilation compilation) {
-        CompilationDto result = modelMapper.map(compilation, CompilationDto.class);
-        List<Event> events = eventRepository.getEventsByCompilationId(compilation.getId());
-        result.setEvents(events.stream().map(event -> modelMapper.map(event, EventShortDto.class)).toList());
-        return result;
+    private List<Event> receiveEvents(Collection<Long> eventIds) {
+        if (eventIds == null || eventIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> uniqueIds = new HashSet<>(eventIds);
+        List<Event> events = eventRepository.findByIdIn(List.copyOf(uniqueIds));
+        if (events.size() != uniqueIds.size()) {
+            events.forEach(event -> uniqueIds.remove(event.getId()));
+            throw new NotFoundException("Events with ids=" + uniqueIds + " were not found");
+        }
+        return new ArrayList<>(events);
+    }
+
+    /**
+     * Просмотры событий всех подборок запрашиваются одним обращением к кэшу просмотров
+     */
+    private List<CompilationDto> mapToCompilationDtos(List<Compilation> compilations) {
+        Map<Long, LocalDateTime> createdByEventId = compilations.stream()
+                .flatMap(compilation -> compilation.getEvents().stream())
+                .collect(Collectors.toMap(Event::getId, Event::getCreated, (first, second) -> first));
+        Map<Long, Long> views = createdByEventId.isEmpty() ? Map.of() : eventViewsCache.getViews(createdByEventId);
+        return compilations.stream()
+                .map(compilation -> CompilationMapper.mapToCompilationDto(compilation, compilation.getEvents().stream()
+                        .map(EventMapper::mapToEventShortDto)
+                        .peek(event -> event.setViews(views.getOrDefault(event.getId(), 0L)))
+                        .toList()))
+                .toList();
     }
 }
@@ -0,0 +1,39 @@
+package ru.practicum.ewm.main.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Кэши справочников (DTO категорий и пользователей) настраиваются свойствами spring.cache,
+ * кэш закрепленных подборок - свойствами compilations.pinned.cache. Обновление и вытеснение при изменении
+ * выполняются после коммита, чтобы параллельный запрос не положил в кэш еще не закоммиченное старое значение
+ */
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties,
+                                     @Value("${compilations.pinned.cache.maximum-size:100}") long pinnedMaximumSize,
+                                     @Value("${compilations.pinned.cache.expire-after-ms:10000}") long pinnedExpireAfterMs) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCacheSpecification(cacheProperties.getCaffeine().getSpec());
+        cacheManager.setCacheNames(cacheProperties.getCacheNames());
+        cacheManager.registerCustomCache("pinnedCompilations", Caffeine.newBuilder()
+                .maximumSize(pinnedMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(pinnedExpireAfterMs))
+                .recordStats()
+                .build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
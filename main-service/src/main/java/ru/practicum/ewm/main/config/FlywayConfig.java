@@ -0,0 +1,24 @@
+package ru.practicum.ewm.main.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * По умолчанию при старте схема только сверяется с миграциями: непримененная или измененная миграция
+ * останавливает запуск. Миграции применяются при db.migration.mode=migrate
+ */
+@Configuration
+public class FlywayConfig {
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(@Value("${db.migration.mode:validate}") String mode) {
+        return flyway -> {
+            switch (mode) {
+                case "validate" -> flyway.validate();
+                case "migrate" -> flyway.migrate();
+                default -> throw new IllegalArgumentException("Unknown db.migration.mode: " + mode);
+            }
+        };
+    }
+}
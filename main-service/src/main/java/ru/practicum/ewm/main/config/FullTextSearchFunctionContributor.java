@@ -0,0 +1,28 @@
+package ru.practicum.ewm.main.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Функции полнотекстового поиска PostgreSQL для запросов QueryDSL. Вектор строится тем же выражением,
+ * что и GIN-индекс events_search_idx из миграции V4, иначе индекс не будет использоваться
+ */
+public class FullTextSearchFunctionContributor implements FunctionContributor {
+    public static final String MATCH = "fts_match";
+    public static final String RANK = "fts_rank";
+
+    private static final String DOCUMENT = "(setweight(to_tsvector('russian', ?1), 'A') || " +
+            "setweight(to_tsvector('russian', ?2), 'B'))";
+    private static final String QUERY = "websearch_to_tsquery('russian', ?3)";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(MATCH, "(" + DOCUMENT + " @@ " + QUERY + ")",
+                functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                        .resolve(StandardBasicTypes.BOOLEAN));
+        functionContributions.getFunctionRegistry().registerPattern(RANK, "ts_rank(" + DOCUMENT + ", " + QUERY + ")",
+                functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                        .resolve(StandardBasicTypes.DOUBLE));
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.ewm.main.event.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewm.main.event.dto.*;
 import ru.practicum.ewm.main.event.model.State;
 import ru.practicum.ewm.main.event.service.EventService;
+import ru.practicum.ewm.main.pagination.Cursors;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -30,8 +32,14 @@ public class AdminEventController {
                                             @RequestParam(required = false) @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime rangeStart,
                                             @RequestParam(required = false) @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime rangeEnd,
                                             @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                            @RequestParam(defaultValue = "10") @Positive int size) {
-        return eventService.findAllEvents(new FindAllEventsParamEntity(users, states, categories, rangeStart, rangeEnd, from, size));
+                                            @RequestParam(defaultValue = "10") @Positive int size,
+                                            @RequestParam(required = false) String cursor,
+                                            HttpServletResponse response) {
+        FindAllEventsParamEntity findAllEventsParamEntity = new FindAllEventsParamEntity(users, states, categories, rangeStart, rangeEnd, from, size);
+        if (cursor != null) {
+            return Cursors.writeNextCursor(eventService.findAllEvents(findAllEventsParamEntity, cursor), response);
+        }
+        return eventService.findAllEvents(findAllEventsParamEntity);
     }
 
     @PatchMapping("/{eventId}")
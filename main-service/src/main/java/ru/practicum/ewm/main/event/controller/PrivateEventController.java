@@ -1,5 +1,6 @@
 package ru.practicum.ewm.main.event.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
@@ -8,6 +9,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewm.main.event.dto.*;
 import ru.practicum.ewm.main.event.service.EventService;
+import ru.practicum.ewm.main.pagination.Cursors;
 
 import java.util.List;
 
@@ -43,7 +45,12 @@ public class PrivateEventController {
     @ResponseStatus(HttpStatus.OK)
     public List<EventFullDto> findOwnersEvents(@PathVariable long userId,
                                                @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                               @RequestParam(defaultValue = "10") @Positive int size) {
+                                               @RequestParam(defaultValue = "10") @Positive int size,
+                                               @RequestParam(required = false) String cursor,
+                                               HttpServletResponse response) {
+        if (cursor != null) {
+            return Cursors.writeNextCursor(eventService.findOwnersEvents(userId, cursor, size), response);
+        }
         return eventService.findOwnersEvents(userId, from, size);
     }
 }
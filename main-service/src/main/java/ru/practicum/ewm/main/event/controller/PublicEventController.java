@@ -1,6 +1,7 @@
 package ru.practicum.ewm.main.event.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
@@ -14,7 +15,8 @@ import ru.practicum.ewm.main.event.dto.EventShortDto;
 import ru.practicum.ewm.main.event.dto.FindAllEventsPublicParamEntity;
 import ru.practicum.ewm.main.event.model.EventSortAction;
 import ru.practicum.ewm.main.event.service.EventService;
-import ru.practicum.ewm.stat.client.StatClient;
+import ru.practicum.ewm.main.pagination.Cursors;
+import ru.practicum.ewm.stat.client.HitDispatcher;
 import ru.practicum.ewm.stat.dto.EndpointHitDto;
 
 import java.time.LocalDateTime;
@@ -27,7 +29,7 @@ public class PublicEventController {
 
     private static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
     private final EventService eventService;
-    private final StatClient statClient;
+    private final HitDispatcher hitDispatcher;
 
     @Value("${app.name}")
     private String appName;
@@ -44,19 +46,24 @@ public class PublicEventController {
             @RequestParam(required = false) EventSortAction sort,
             @RequestParam(defaultValue = "0") @PositiveOrZero int from,
             @RequestParam(defaultValue = "10") @Positive int size,
-            HttpServletRequest request) {
+            @RequestParam(required = false) String cursor,
+            HttpServletRequest request,
+            HttpServletResponse response) {
         FindAllEventsPublicParamEntity findAllEventsPublicParamEntity = new FindAllEventsPublicParamEntity(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, from, size);
-        List<EventShortDto> events = eventService.findAllEventsPublic(findAllEventsPublicParamEntity);
+        List<EventShortDto> events = cursor != null
+                ? Cursors.writeNextCursor(eventService.findAllEventsPublic(findAllEventsPublicParamEntity, cursor), response)
+                : eventService.findAllEventsPublic(findAllEventsPublicParamEntity);
         EndpointHitDto endpointHitDto = new EndpointHitDto(appName, request.getRequestURI(), request.getRemoteAddr(), LocalDateTime.now());
-        statClient.hit(endpointHitDto);
+        hitDispatcher.dispatch(endpointHitDto);
         return events;
     }
 
     @GetMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
     public EventFullDto findEvent(@PathVariable long id, HttpServletRequest request) {
+        // хит отправляется синхронно: просмотры в ответе должны его учитывать
         EndpointHitDto endpointHitDto = new EndpointHitDto("main-service", request.getRequestURI(), request.getRemoteAddr(), LocalDateTime.now());
-        statClient.hit(endpointHitDto);
+        hitDispatcher.send(endpointHitDto);
         return eventService.findEvent(id);
     }
 }
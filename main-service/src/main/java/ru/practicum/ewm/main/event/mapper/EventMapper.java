@@ -39,7 +39,7 @@ public class EventMapper {
         EventFullDto dto = new EventFullDto();
         dto.setAnnotation(event.getAnnotation());
         dto.setCategory(CategoryMapper.mapToCategoryDto(event.getCategory()));
-        dto.setConfirmedRequests(0);
+        dto.setConfirmedRequests(event.getConfirmedRequests());
         dto.setCreatedOn(event.getCreated());
         dto.setDescription(event.getDescription());
         dto.setEventDate(event.getEventDate());
@@ -53,7 +53,7 @@ public class EventMapper {
         dto.setState(event.getState());
         dto.setTitle(event.getTitle());
         dto.setViews(0);
-        dto.setComments(0);
+        dto.setComments(event.getCommentsCount());
         return dto;
     }
 
@@ -61,14 +61,14 @@ public class EventMapper {
         EventShortDto dto = new EventShortDto();
         dto.setAnnotation(event.getAnnotation());
         dto.setCategory(CategoryMapper.mapToCategoryDto(event.getCategory()));
-        dto.setConfirmedRequests(0);
+        dto.setConfirmedRequests(event.getConfirmedRequests());
         dto.setEventDate(event.getEventDate());
         dto.setId(event.getId());
         dto.setInitiator(UserMapper.mapToUserShortDto(event.getInitiator()));
         dto.setPaid(event.isPaid());
         dto.setTitle(event.getTitle());
         dto.setViews(0);
-        dto.setComments(0);
+        dto.setComments(event.getCommentsCount());
         return dto;
     }
 }
@@ -23,7 +23,7 @@ public class Event {
     @Column(nullable = false, length = 2000)
     String annotation;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     Category category;
 
@@ -33,7 +33,7 @@ public class Event {
     @Column(name = "event_date")
     LocalDateTime eventDate;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "location_id")
     Location location;
 
@@ -50,7 +50,7 @@ public class Event {
 
     LocalDateTime created;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "initiator_id")
     User initiator;
 
@@ -59,6 +59,22 @@ public class Event {
 
     LocalDateTime published;
 
+    /**
+     * Счетчики меняются только атомарными запросами EventRepository, поэтому при сохранении события не пишутся
+     */
+    @Column(name = "confirmed_requests", insertable = false, updatable = false)
+    long confirmedRequests;
+
+    @Column(name = "comments_count", insertable = false, updatable = false)
+    long commentsCount;
+
+    /**
+     * Копия просмотров из сервиса статистики для сортировки в запросе, отстает не больше чем на период
+     * обновления кэша просмотров
+     */
+    @Column(insertable = false, updatable = false)
+    long views;
+
     public Event(long id) {
         this.id = id;
     }
@@ -2,5 +2,9 @@ package ru.practicum.ewm.main.event.model;
 
 public enum EventSortAction {
     EVENT_DATE,
-    VIEWS
+    VIEWS,
+    /**
+     * По релевантности полнотекстового поиска по text, без полнотекстового поиска - по id
+     */
+    RELEVANCE
 }
@@ -1,21 +1,72 @@
 package ru.practicum.ewm.main.event.repository;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.main.event.model.Event;
 
 import java.util.List;
+import java.util.Optional;
 
-public interface EventRepository extends JpaRepository<Event, Long>, QuerydslPredicateExecutor<Event> {
+public interface EventRepository extends JpaRepository<Event, Long>, QuerydslPredicateExecutor<Event>,
+        EventViewsRepository {
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    Optional<Event> findFullById(long eventId);
+
+    /**
+     * Событие с блокировкой строки до конца транзакции: модерация заявок одного события выполняется по очереди
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Event> findLockedById(long eventId);
+
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
     List<Event> findAllByInitiatorId(long userId, PageRequest page);
 
-    @Query(value = "select e.* " +
-            "from events e " +
-            "join events_compilations ec on ec.event_id = e.id " +
-            "where ec.compilation_id = :compilationId", nativeQuery = true)
-    List<Event> getEventsByCompilationId(Long compilationId);
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    Window<Event> findAllByInitiatorId(long userId, ScrollPosition position, Sort sort, Limit limit);
 
+    /**
+     * События для подборок отображаются как EventShortDto, место проведения не загружается
+     */
+    @EntityGraph(attributePaths = {"category", "initiator"})
     List<Event> findByIdIn(List<Long> events);
+
+    @Modifying
+    @Query("UPDATE Event e SET e.confirmedRequests = e.confirmedRequests + :delta WHERE e.id = :eventId")
+    void addConfirmedRequests(@Param("eventId") long eventId, @Param("delta") long delta);
+
+    /**
+     * Атомарно занимает место участника: счетчик увеличивается, только если лимит не исчерпан.
+     * Блокировка строки события держится от этого запроса до коммита, поэтому его стоит выполнять последним
+     *
+     * @return 1, если место занято, 0 - если лимит исчерпан
+     */
+    @Modifying
+    @Query("UPDATE Event e SET e.confirmedRequests = e.confirmedRequests + 1 " +
+            "WHERE e.id = :eventId AND (e.participantLimit = 0 OR e.confirmedRequests < e.participantLimit)")
+    int reserveParticipant(@Param("eventId") long eventId);
+
+    @Modifying
+    @Query("UPDATE Event e SET e.commentsCount = e.commentsCount + :delta WHERE e.id = :eventId")
+    void addComments(@Param("eventId") long eventId, @Param("delta") long delta);
+
+    /**
+     * Вычитает из счетчиков комментарии пользователя, которые будут удалены каскадно вместе с ним
+     */
+    @Modifying
+    @Query(value = "update events e " +
+            "set comments_count = comments_count - " +
+            "(select count(*) from comments c where c.event_id = e.id and c.author_id = :authorId) " +
+            "where e.id in (select c.event_id from comments c where c.author_id = :authorId)", nativeQuery = true)
+    void subtractCommentsOfAuthor(@Param("authorId") long authorId);
 }
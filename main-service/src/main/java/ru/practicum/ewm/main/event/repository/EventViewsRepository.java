@@ -0,0 +1,10 @@
+package ru.practicum.ewm.main.event.repository;
+
+import java.util.Map;
+
+public interface EventViewsRepository {
+    /**
+     * Сохраняет в events.views количество просмотров, полученное из сервиса статистики
+     */
+    void saveViews(Map<Long, Long> viewsByEventId);
+}
@@ -0,0 +1,20 @@
+package ru.practicum.ewm.main.event.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class EventViewsRepositoryImpl implements EventViewsRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void saveViews(Map<Long, Long> viewsByEventId) {
+        List<Object[]> args = viewsByEventId.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey(), entry.getValue()})
+                .toList();
+        jdbcTemplate.batchUpdate("update events set views = ? where id = ? and views <> ?", args);
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.ewm.main.event.service;
 
 import ru.practicum.ewm.main.event.dto.*;
+import ru.practicum.ewm.main.pagination.CursorPage;
 
 import java.util.List;
 
@@ -13,11 +14,25 @@ public interface EventService {
 
     List<EventFullDto> findOwnersEvents(long userId, int from, int size);
 
+    CursorPage<EventFullDto> findOwnersEvents(long userId, String cursor, int size);
+
     List<EventFullDto> findAllEvents(FindAllEventsParamEntity findAllEventsParamEntity);
 
+    /**
+     * Курсорная пагинация: from игнорируется, страница начинается после cursor
+     */
+    CursorPage<EventFullDto> findAllEvents(FindAllEventsParamEntity findAllEventsParamEntity, String cursor);
+
     EventFullDto editEvent(long eventId, UpdateEventAdminRequestDto updateEventAdminRequestDto);
 
     List<EventShortDto> findAllEventsPublic(FindAllEventsPublicParamEntity findAllEventsPublicParamEntity);
 
+    /**
+     * Курсорная пагинация: from игнорируется, страница начинается после cursor.
+     * Сортировки VIEWS и RELEVANCE не поддерживаются
+     */
+    CursorPage<EventShortDto> findAllEventsPublic(FindAllEventsPublicParamEntity findAllEventsPublicParamEntity,
+                                                  String cursor);
+
     EventFullDto findEvent(long eventId);
 }
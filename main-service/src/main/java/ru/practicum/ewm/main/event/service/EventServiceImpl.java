@@ -2,16 +2,27 @@ package ru.practicum.ewm.main.event.service;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberTemplate;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.querydsl.QSort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewm.main.category.mapper.CategoryMapper;
 import ru.practicum.ewm.main.category.model.Category;
 import ru.practicum.ewm.main.category.repository.CategoryRepository;
-import ru.practicum.ewm.main.comment.model.Comment;
-import ru.practicum.ewm.main.comment.repository.CommentRepository;
+import ru.practicum.ewm.main.config.FullTextSearchFunctionContributor;
 import ru.practicum.ewm.main.event.dto.*;
 import ru.practicum.ewm.main.event.mapper.EventMapper;
 import ru.practicum.ewm.main.event.mapper.LocationMapper;
@@ -21,17 +32,16 @@ import ru.practicum.ewm.main.event.repository.LocationRepository;
 import ru.practicum.ewm.main.exception.type.BadRequestException;
 import ru.practicum.ewm.main.exception.type.ForbiddenException;
 import ru.practicum.ewm.main.exception.type.NotFoundException;
-import ru.practicum.ewm.main.request.model.Request;
-import ru.practicum.ewm.main.request.model.Status;
-import ru.practicum.ewm.main.request.repository.RequestRepository;
+import ru.practicum.ewm.main.pagination.CursorPage;
+import ru.practicum.ewm.main.pagination.Cursors;
+import ru.practicum.ewm.main.user.UserMapper;
 import ru.practicum.ewm.main.user.model.User;
 import ru.practicum.ewm.main.user.repository.UserRepository;
-import ru.practicum.ewm.stat.client.StatClient;
-import ru.practicum.ewm.stat.dto.ViewStatsDto;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -42,9 +52,11 @@ public class EventServiceImpl implements EventService {
     LocationRepository locationRepository;
     UserRepository userRepository;
     CategoryRepository categoryRepository;
-    StatClient statClient;
-    RequestRepository requestRepository;
-    CommentRepository commentRepository;
+    EventViewsCache eventViewsCache;
+
+    @NonFinal
+    @Value("${events.search.full-text:false}")
+    boolean fullTextSearch;
 
     @Override
     public EventFullDto addEvent(long userId, NewEventDto newEventDto) {
@@ -59,6 +71,7 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
+    @CacheEvict(cacheNames = "pinnedCompilations", allEntries = true)
     public EventFullDto updateEvent(long userId, long eventId, UpdateEventUserRequestDto updateEventUserRequestDto) {
         User user = receiveUser(userId);
         Event event = receiveEvent(eventId);
@@ -105,17 +118,46 @@ public class EventServiceImpl implements EventService {
                 .toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<EventFullDto> findOwnersEvents(long userId, String cursor, int size) {
+        User user = receiveUser(userId);
+        Sort sort = Sort.by("id");
+        Window<Event> events = eventRepository.findAllByInitiatorId(user.getId(), Cursors.decode(cursor, sort), sort,
+                Limit.of(size));
+        return new CursorPage<>(loadStatisticAndRequestForList(events.stream()
+                .map(EventMapper::mapToEventFullDto)
+                .toList()), Cursors.nextCursor(events));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<EventFullDto> findAllEvents(FindAllEventsParamEntity findAllEventsParamEntity) {
         Predicate predicate = predicateForFindingAllEventsByAdmin(findAllEventsParamEntity);
         PageRequest page = PageRequest.of(findAllEventsParamEntity.getFrom(), findAllEventsParamEntity.getSize());
-        return loadStatisticAndRequestForList(eventRepository.findAll(predicate, page).stream()
+        return loadStatisticAndRequestForList(eventRepository.findBy(predicate, query -> query
+                        .project("category", "initiator", "location")
+                        .page(page)).stream()
                 .map(EventMapper::mapToEventFullDto)
                 .toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public CursorPage<EventFullDto> findAllEvents(FindAllEventsParamEntity findAllEventsParamEntity, String cursor) {
+        Predicate predicate = predicateForFindingAllEventsByAdmin(findAllEventsParamEntity);
+        Sort sort = Sort.by("id");
+        ScrollPosition position = Cursors.decode(cursor, sort);
+        Window<Event> events = eventRepository.findBy(predicate, query -> query.sortBy(sort)
+                .limit(findAllEventsParamEntity.getSize())
+                .scroll(position));
+        return new CursorPage<>(loadStatisticAndRequestForList(events.stream()
+                .map(EventMapper::mapToEventFullDto)
+                .toList()), Cursors.nextCursor(events));
+    }
+
+    @Override
+    @CacheEvict(cacheNames = "pinnedCompilations", allEntries = true)
     @Transactional
     public EventFullDto editEvent(long eventId, UpdateEventAdminRequestDto updateEventAdminRequestDto) {
         Event event = receiveEvent(eventId);
@@ -151,6 +193,31 @@ public class EventServiceImpl implements EventService {
     @Override
     @Transactional(readOnly = true)
     public List<EventShortDto> findAllEventsPublic(FindAllEventsPublicParamEntity findAllEventsPublicParamEntity) {
+        checkRange(findAllEventsPublicParamEntity);
+        Predicate predicate = predicateForFindingAllEventsByAny(findAllEventsPublicParamEntity);
+        PageRequest page = PageRequest.of(findAllEventsPublicParamEntity.getFrom(), findAllEventsPublicParamEntity.getSize(),
+                sortForFindingAllEventsPublic(findAllEventsPublicParamEntity));
+        List<Event> events = eventRepository.findBy(predicate, query -> query
+                .project("category", "initiator")
+                .page(page)).getContent();
+        return loadStatisticAndRequest(events);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<EventShortDto> findAllEventsPublic(FindAllEventsPublicParamEntity findAllEventsPublicParamEntity,
+                                                         String cursor) {
+        checkRange(findAllEventsPublicParamEntity);
+        Predicate predicate = predicateForFindingAllEventsByAny(findAllEventsPublicParamEntity);
+        Sort sort = keysetSortForFindingAllEventsPublic(findAllEventsPublicParamEntity.getSort());
+        ScrollPosition position = Cursors.decode(cursor, sort);
+        Window<Event> events = eventRepository.findBy(predicate, query -> query.sortBy(sort)
+                .limit(findAllEventsPublicParamEntity.getSize())
+                .scroll(position));
+        return new CursorPage<>(loadStatisticAndRequest(events.getContent()), Cursors.nextCursor(events));
+    }
+
+    private void checkRange(FindAllEventsPublicParamEntity findAllEventsPublicParamEntity) {
         LocalDateTime rangeEnd = findAllEventsPublicParamEntity.getRangeEnd();
         LocalDateTime rangeStart = findAllEventsPublicParamEntity.getRangeStart();
         if (rangeEnd != null && rangeStart != null) {
@@ -158,36 +225,22 @@ public class EventServiceImpl implements EventService {
                 throw new BadRequestException("'rangeEnd' can not be before 'rangeStart'");
             }
         }
-        Predicate predicate = predicateForFindingAllEventsByAny(findAllEventsPublicParamEntity);
-        PageRequest page = PageRequest.of(findAllEventsPublicParamEntity.getFrom(), findAllEventsPublicParamEntity.getSize());
-        List<Event> events = eventRepository.findAll(predicate, page).stream().toList();
-        if (findAllEventsPublicParamEntity.isOnlyAvailable()) {
-            events = events.stream()
-                    .filter(this::isEventAvailableByLimit)
-                    .toList();
-        }
-        List<EventShortDto> eventShortDtos = loadStatisticAndRequest(events);
-        if (findAllEventsPublicParamEntity.getSort() != null) {
-            switch (findAllEventsPublicParamEntity.getSort()) {
-                case EVENT_DATE -> eventShortDtos = eventShortDtos.stream()
-                        .sorted(Comparator.comparing(EventShortDto::getEventDate))
-                        .toList();
-                case VIEWS -> eventShortDtos = eventShortDtos.stream()
-                        .sorted(Comparator.comparing(EventShortDto::getViews))
-                        .toList();
-            }
-        }
-        return eventShortDtos;
     }
 
+    /**
+     * Без транзакции: событие со связями читается одним запросом в транзакции репозитория,
+     * и соединение с базой не удерживается, пока просмотры запрашиваются у сервиса статистики
+     */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public EventFullDto findEvent(long eventId) {
         Event event = receiveEvent(eventId);
         if (event.getState() != State.PUBLISHED) {
             throw new NotFoundException("Event with id=" + eventId + " was not found");
         }
-        return loadStatisticAndRequest(EventMapper.mapToEventFullDto(event));
+        EventFullDto eventFullDto = EventMapper.mapToEventFullDto(event);
+        eventFullDto.setViews(eventViewsCache.getViewsOnRead(eventFullDto.getId(), eventFullDto.getCreatedOn()));
+        return eventFullDto;
     }
 
     private void updateFields(Event event, UpdateEventFieldsEntity updateEventFieldsEntity) {
@@ -229,44 +282,17 @@ public class EventServiceImpl implements EventService {
         if (events == null || events.isEmpty()) {
             return List.of();
         }
-        LocalDateTime start = events.stream()
-                .map(Event::getCreated)
-                .min(LocalDateTime::compareTo)
-                .get();
-        List<String> uris = events.stream()
-                .map(event -> "/events/" + event.getId())
-                .toList();
-        List<Request> requests = requestRepository.findByEventIdInAndStatus(events.stream()
-                .map(Event::getId)
-                .toList(), Status.CONFIRMED);
-        List<ViewStatsDto> viewStats = statClient.getStat(start, LocalDateTime.now(), uris, true);
-        List<Comment> comments = commentRepository.findByEventIdIn(events.stream()
-                .map(Event::getId)
-                .toList());
+        Map<Long, Long> views = eventViewsCache.getViews(events.stream()
+                .collect(Collectors.toMap(Event::getId, Event::getCreated)));
         return events.stream()
                 .map(EventMapper::mapToEventShortDto)
-                .peek(event -> event.setConfirmedRequests(requests.stream()
-                        .filter(request -> request.getEvent().getId() == event.getId())
-                        .count()))
-                .peek(event -> event.setViews(viewStats.stream()
-                        .filter(view -> view.getUri().equals("/events/" + event.getId()))
-                        .map(ViewStatsDto::getHits)
-                        .reduce(0L, Long::sum)))
-                .peek(event -> event.setComments(comments.stream()
-                        .filter(comment -> comment.getEvent().getId() == event.getId())
-                        .count()))
+                .peek(event -> event.setViews(views.getOrDefault(event.getId(), 0L)))
                 .toList();
     }
 
     private EventFullDto loadStatisticAndRequest(EventFullDto event) {
-        long amountOfConfirmedRequests = requestRepository.countByEventIdAndStatus(event.getId(), Status.CONFIRMED);
-        event.setConfirmedRequests(amountOfConfirmedRequests);
-        long amountOfViews = statClient.getStat(event.getCreatedOn(), LocalDateTime.now(), List.of("/events/" + event.getId()), true).stream()
-                .map(ViewStatsDto::getHits)
-                .reduce(0L, Long::sum);
+        long amountOfViews = eventViewsCache.getViews(event.getId(), event.getCreatedOn());
         event.setViews(amountOfViews);
-        long amountOfComments = commentRepository.countByEventId(event.getId());
-        event.setComments(amountOfComments);
         return event;
     }
 
@@ -274,31 +300,10 @@ public class EventServiceImpl implements EventService {
         if (events == null || events.isEmpty()) {
             return List.of();
         }
-        LocalDateTime start = events.stream()
-                .map(EventFullDto::getCreatedOn)
-                .min(LocalDateTime::compareTo)
-                .get();
-        List<String> uris = events.stream()
-                .map(event -> "/events/" + event.getId())
-                .toList();
-        List<Request> requests = requestRepository.findByEventIdInAndStatus(events.stream()
-                .map(EventFullDto::getId)
-                .toList(), Status.CONFIRMED);
-        List<ViewStatsDto> viewStats = statClient.getStat(start, LocalDateTime.now(), uris, true);
-        List<Comment> comments = commentRepository.findByEventIdIn(events.stream()
-                .map(EventFullDto::getId)
-                .toList());
+        Map<Long, Long> views = eventViewsCache.getViews(events.stream()
+                .collect(Collectors.toMap(EventFullDto::getId, EventFullDto::getCreatedOn)));
         return events.stream()
-                .peek(event -> event.setConfirmedRequests(requests.stream()
-                        .filter(request -> request.getEvent().getId() == event.getId())
-                        .count()))
-                .peek(event -> event.setViews(viewStats.stream()
-                        .filter(view -> view.getUri().equals("/events/" + event.getId()))
-                        .map(ViewStatsDto::getHits)
-                        .reduce(0L, Long::sum)))
-                .peek(event -> event.setComments(comments.stream()
-                        .filter(comment -> comment.getEvent().getId() == event.getId())
-                        .count()))
+                .peek(event -> event.setViews(views.getOrDefault(event.getId(), 0L)))
                 .toList();
     }
 
@@ -326,9 +331,15 @@ public class EventServiceImpl implements EventService {
     private Predicate predicateForFindingAllEventsByAny(FindAllEventsPublicParamEntity findAllEventsPublicParamEntity) {
         BooleanBuilder booleanBuilder = new BooleanBuilder();
         booleanBuilder.and(QEvent.event.state.eq(State.PUBLISHED));
-        if (findAllEventsPublicParamEntity.getText() != null && !findAllEventsPublicParamEntity.getText().isBlank()) {
-            booleanBuilder.and(QEvent.event.description.containsIgnoreCase(findAllEventsPublicParamEntity.getText())
-                    .or(QEvent.event.annotation.containsIgnoreCase(findAllEventsPublicParamEntity.getText())));
+        if (hasText(findAllEventsPublicParamEntity)) {
+            if (fullTextSearch) {
+                booleanBuilder.and(Expressions.booleanTemplate("function('" + FullTextSearchFunctionContributor.MATCH +
+                                "', {0}, {1}, {2}) = true", QEvent.event.annotation, QEvent.event.description,
+                        findAllEventsPublicParamEntity.getText()));
+            } else {
+                booleanBuilder.and(QEvent.event.description.containsIgnoreCase(findAllEventsPublicParamEntity.getText())
+                        .or(QEvent.event.annotation.containsIgnoreCase(findAllEventsPublicParamEntity.getText())));
+            }
         }
         if (findAllEventsPublicParamEntity.getCategories() != null && !findAllEventsPublicParamEntity.getCategories().isEmpty()) {
             booleanBuilder.and(QEvent.event.category.id.in(findAllEventsPublicParamEntity.getCategories()));
@@ -345,33 +356,77 @@ public class EventServiceImpl implements EventService {
         if (findAllEventsPublicParamEntity.getRangeStart() != null && findAllEventsPublicParamEntity.getRangeEnd() != null) {
             booleanBuilder.and(QEvent.event.eventDate.after(LocalDateTime.now()));
         }
+        if (findAllEventsPublicParamEntity.isOnlyAvailable()) {
+            booleanBuilder.and(QEvent.event.participantLimit.eq(0)
+                    .or(QEvent.event.participantLimit.gt(QEvent.event.confirmedRequests)));
+        }
         return booleanBuilder.getValue();
     }
 
+    /**
+     * Сортировка по просмотрам идет по events.views, который обновляется из кэша просмотров с небольшой задержкой
+     */
+    private QSort sortForFindingAllEventsPublic(FindAllEventsPublicParamEntity findAllEventsPublicParamEntity) {
+        QSort byId = new QSort(QEvent.event.id.asc());
+        if (findAllEventsPublicParamEntity.getSort() == null) {
+            return byId;
+        }
+        return switch (findAllEventsPublicParamEntity.getSort()) {
+            case EVENT_DATE -> new QSort(QEvent.event.eventDate.asc()).and(byId);
+            case VIEWS -> new QSort(QEvent.event.views.asc()).and(byId);
+            case RELEVANCE -> fullTextSearch && hasText(findAllEventsPublicParamEntity)
+                    ? new QSort(relevance(findAllEventsPublicParamEntity.getText()).desc()).and(byId)
+                    : byId;
+        };
+    }
+
+    private NumberTemplate<Double> relevance(String text) {
+        return Expressions.numberTemplate(Double.class, "function('" + FullTextSearchFunctionContributor.RANK +
+                "', {0}, {1}, {2})", QEvent.event.annotation, QEvent.event.description, text);
+    }
+
+    /**
+     * Для курсора нужны ключи сортировки, которые есть в строке таблицы и не меняются между страницами,
+     * поэтому не подходят ни ранг полнотекстового поиска, ни просмотры: saveViews обновляет их при каждом
+     * чтении события, и строка перескочила бы через курсор - пропала бы или повторилась
+     */
+    private Sort keysetSortForFindingAllEventsPublic(EventSortAction sortAction) {
+        if (sortAction == null) {
+            return Sort.by("id");
+        }
+        return switch (sortAction) {
+            case EVENT_DATE -> Sort.by("eventDate", "id");
+            case VIEWS, RELEVANCE -> throw new BadRequestException("Cursor pagination is not supported for sort "
+                    + sortAction);
+        };
+    }
+
+    private boolean hasText(FindAllEventsPublicParamEntity findAllEventsPublicParamEntity) {
+        return findAllEventsPublicParamEntity.getText() != null && !findAllEventsPublicParamEntity.getText().isBlank();
+    }
+
     private User receiveUser(long userId) {
-        return userRepository.findById(userId)
+        return userRepository.findCachedById(userId)
+                .map(UserMapper::mapToUser)
                 .orElseThrow(() -> new NotFoundException("User with id=" + userId + " was not found"));
     }
 
     private Category receiveCategory(long catId) {
-        return categoryRepository.findById(catId)
+        return categoryRepository.findCachedById(catId)
+                .map(CategoryMapper::mapToCategory)
                 .orElseThrow(() -> new NotFoundException("Category with id=" + catId + " was not found"));
     }
 
     private Event receiveEvent(long eventId) {
-        return eventRepository.findById(eventId)
+        return eventRepository.findFullById(eventId)
                 .orElseThrow(() -> new NotFoundException("Event with id=" + eventId + " was not found"));
     }
 
     private void checkValidUserForEvent(User user, Event event) {
-        if (!event.getInitiator().equals(user))
+        if (event.getInitiator().getId() != user.getId())
             throw new BadRequestException("Event is not for this user");
     }
 
-    private boolean isEventAvailableByLimit(Event event) {
-        return event.getParticipantLimit() > requestRepository.countByEventIdAndStatus(event.getId(), Status.CONFIRMED);
-    }
-
     private Location addLocation(LocationDto locationDto) {
         return locationRepository.save(LocationMapper.mapToLocation(locationDto));
     }
@@ -0,0 +1,222 @@
+package ru.practicum.ewm.main.event.service;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.main.event.repository.EventRepository;
+import ru.practicum.ewm.stat.client.StatClient;
+import ru.practicum.ewm.stat.dto.StatsQueryDto;
+import ru.practicum.ewm.stat.dto.UriStartDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш количества просмотров событий. Значение старше refresh-after-ms отдается из кэша сразу,
+ * а обновляется в фоне: такие события копятся и раз в refresh-batch-delay-ms запрашиваются у сервиса
+ * статистики одним запросом. Синхронно сервис статистики вызывается только для событий, которых нет в кэше.
+ * Полученные значения тем же фоновым потоком копируются в events.views для сортировки по просмотрам.
+ * При stats.views.fresh-on-read просмотры одного события при его чтении запрашиваются в обход кэша
+ */
+@Slf4j
+@Component
+public class EventViewsCache {
+    private final StatClient statClient;
+    private final EventRepository eventRepository;
+    private final LoadingCache<EventViewsKey, Long> cache;
+    private final Map<EventViewsKey, PendingRefresh> pendingRefreshes = new ConcurrentHashMap<>();
+    private final Map<Long, Long> unsavedViews = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refresher;
+    private final long refreshBatchDelayMs;
+    private final boolean freshOnRead;
+
+    public EventViewsCache(StatClient statClient,
+                           EventRepository eventRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${stats.views.cache.maximum-size:10000}") long maximumSize,
+                           @Value("${stats.views.cache.refresh-after-ms:10000}") long refreshAfterMs,
+                           @Value("${stats.views.cache.expire-after-ms:300000}") long expireAfterMs,
+                           @Value("${stats.views.cache.refresh-batch-delay-ms:100}") long refreshBatchDelayMs,
+                           @Value("${stats.views.fresh-on-read:true}") boolean freshOnRead) {
+        if (refreshAfterMs <= 0 || refreshBatchDelayMs <= 0 || expireAfterMs <= refreshAfterMs) {
+            throw new IllegalArgumentException("Views refresh delays must be positive and less than expiration time");
+        }
+        this.statClient = statClient;
+        this.eventRepository = eventRepository;
+        this.refreshBatchDelayMs = refreshBatchDelayMs;
+        this.freshOnRead = freshOnRead;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(Duration.ofMillis(refreshAfterMs))
+                .expireAfterWrite(Duration.ofMillis(expireAfterMs))
+                .recordStats()
+                .build(new ViewsLoader());
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "eventViews");
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-views-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        refresher.scheduleWithFixedDelay(this::refreshAndSave, refreshBatchDelayMs, refreshBatchDelayMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    public long getViews(long eventId, LocalDateTime created) {
+        return cache.get(new EventViewsKey(eventId, created));
+    }
+
+    /**
+     * Просмотры для ответа на чтение одного события, в обход кэша при stats.views.fresh-on-read
+     */
+    public long getViewsOnRead(long eventId, LocalDateTime created) {
+        return freshOnRead ? getFreshViews(eventId, created) : getViews(eventId, created);
+    }
+
+    /**
+     * Просмотры события в обход кэша: значение запрашивается у сервиса статистики и заменяет запись в кэше.
+     * Если сервис статистики недоступен, отдается значение из кэша
+     */
+    private long getFreshViews(long eventId, LocalDateTime created) {
+        EventViewsKey key = new EventViewsKey(eventId, created);
+        try {
+            long views = fetch(List.of(key)).get(key);
+            cache.put(key, views);
+            return views;
+        } catch (RuntimeException e) {
+            Long cached = cache.getIfPresent(key);
+            if (cached == null) {
+                throw e;
+            }
+            log.warn("Failed to fetch views of event {}, cached value is used: {}", eventId, e.getMessage());
+            return cached;
+        }
+    }
+
+    /**
+     * @param createdByEventId время создания по id события, просмотры считаются с этого момента
+     * @return количество просмотров по id события
+     */
+    public Map<Long, Long> getViews(Map<Long, LocalDateTime> createdByEventId) {
+        List<EventViewsKey> keys = createdByEventId.entrySet().stream()
+                .map(entry -> new EventViewsKey(entry.getKey(), entry.getValue()))
+                .toList();
+        return cache.getAll(keys).entrySet().stream()
+                .collect(Collectors.toMap(entry -> entry.getKey().eventId(), Map.Entry::getValue));
+    }
+
+    private Map<EventViewsKey, Long> fetch(Collection<? extends EventViewsKey> keys) {
+        Map<String, Long> hits = statClient.getHits(StatsQueryDto.builder()
+                .end(LocalDateTime.now())
+                .uriStarts(keys.stream()
+                        .map(key -> new UriStartDto(key.uri(), key.created()))
+                        .toList())
+                .unique(true)
+                .build());
+        Map<EventViewsKey, Long> views = keys.stream()
+                .collect(Collectors.toMap(Function.identity(), key -> hits.getOrDefault(key.uri(), 0L)));
+        views.forEach((key, value) -> unsavedViews.put(key.eventId(), value));
+        return views;
+    }
+
+    private void refreshAndSave() {
+        refreshPending();
+        saveViews();
+    }
+
+    /**
+     * При ошибке сервиса статистики остаются прежние значения, следующая попытка - через refresh-after-ms
+     */
+    private void refreshPending() {
+        if (pendingRefreshes.isEmpty()) {
+            return;
+        }
+        Map<EventViewsKey, PendingRefresh> batch = new HashMap<>();
+        for (EventViewsKey key : List.copyOf(pendingRefreshes.keySet())) {
+            PendingRefresh pendingRefresh = pendingRefreshes.remove(key);
+            if (pendingRefresh != null) {
+                batch.put(key, pendingRefresh);
+            }
+        }
+        try {
+            Map<EventViewsKey, Long> views = fetch(batch.keySet());
+            batch.forEach((key, pendingRefresh) -> pendingRefresh.future().complete(views.get(key)));
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh views of {} events: {}", batch.size(), e.getMessage());
+            batch.values().forEach(pendingRefresh -> pendingRefresh.future().complete(pendingRefresh.oldValue()));
+        }
+    }
+
+    private void saveViews() {
+        if (unsavedViews.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> batch = new HashMap<>();
+        for (Long eventId : List.copyOf(unsavedViews.keySet())) {
+            Long views = unsavedViews.remove(eventId);
+            if (views != null) {
+                batch.put(eventId, views);
+            }
+        }
+        try {
+            eventRepository.saveViews(batch);
+        } catch (RuntimeException e) {
+            log.warn("Failed to save views of {} events: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private class ViewsLoader implements CacheLoader<EventViewsKey, Long> {
+        @Override
+        public Long load(EventViewsKey key) {
+            return fetch(List.of(key)).get(key);
+        }
+
+        @Override
+        public Map<EventViewsKey, Long> loadAll(Set<? extends EventViewsKey> keys) {
+            return fetch(keys);
+        }
+
+        @Override
+        public CompletableFuture<Long> asyncReload(EventViewsKey key, Long oldValue, Executor executor) {
+            return pendingRefreshes.computeIfAbsent(key, k -> new PendingRefresh(oldValue, new CompletableFuture<>()))
+                    .future();
+        }
+    }
+
+    private record EventViewsKey(long eventId, LocalDateTime created) {
+        String uri() {
+            return "/events/" + eventId;
+        }
+    }
+
+    private record PendingRefresh(long oldValue, CompletableFuture<Long> future) {
+    }
+}
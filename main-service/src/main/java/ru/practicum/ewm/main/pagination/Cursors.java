@@ -0,0 +1,100 @@
+package ru.practicum.ewm.main.pagination;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import ru.practicum.ewm.main.exception.type.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Курсорная (keyset) пагинация: курсор - непрозрачная для клиента строка со значениями ключей сортировки
+ * и id последней строки страницы. Следующая страница выбирается условием по этим ключам, а не OFFSET,
+ * поэтому ее стоимость не зависит от глубины, а новые строки не сдвигают страницы.
+ * Пустой курсор - первая страница
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class Cursors {
+    private static final String ID = "id";
+
+    public static ScrollPosition decode(String cursor, Sort sort) {
+        if (cursor == null || cursor.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            for (String entry : decoded.split("&")) {
+                String[] nameAndValue = entry.split("=", 2);
+                String[] typeAndValue = nameAndValue[1].split(":", 2);
+                keys.put(nameAndValue[0], switch (typeAndValue[0]) {
+                    case "l" -> Long.parseLong(typeAndValue[1]);
+                    case "i" -> Integer.parseInt(typeAndValue[1]);
+                    case "t" -> LocalDateTime.parse(typeAndValue[1]);
+                    default -> throw new IllegalArgumentException("Unknown key type " + typeAndValue[0]);
+                });
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestException("Cursor " + cursor + " is malformed");
+        }
+        if (!keys.keySet().equals(keyNames(sort))) {
+            throw new BadRequestException("Cursor " + cursor + " does not match the requested sort");
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    public static <T, R> CursorPage<R> toPage(Window<T> window, Function<T, R> mapper) {
+        return new CursorPage<>(window.stream().map(mapper).toList(), nextCursor(window));
+    }
+
+    /**
+     * @return курсор следующей страницы, null, если страница последняя
+     */
+    public static String nextCursor(Window<?> window) {
+        if (!window.hasNext() || window.isEmpty()) {
+            return null;
+        }
+        return encode(((KeysetScrollPosition) window.positionAt(window.size() - 1)).getKeys());
+    }
+
+    public static <T> List<T> writeNextCursor(CursorPage<T> page, HttpServletResponse response) {
+        if (page.getNextCursor() != null) {
+            response.setHeader(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return page.getItems();
+    }
+
+    private static String encode(Map<String, ?> keys) {
+        StringJoiner joiner = new StringJoiner("&");
+        keys.forEach((name, value) -> joiner.add(name + "=" + switch (value) {
+            case Long l -> "l:" + l;
+            case Integer i -> "i:" + i;
+            case LocalDateTime t -> "t:" + t;
+            default -> throw new IllegalStateException("Unsupported cursor key " + name + " of " + value.getClass());
+        }));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Set<String> keyNames(Sort sort) {
+        Set<String> names = sort.stream()
+                .map(Sort.Order::getProperty)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        names.add(ID);
+        return names;
+    }
+}
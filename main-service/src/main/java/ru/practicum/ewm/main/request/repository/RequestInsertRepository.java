@@ -0,0 +1,14 @@
+package ru.practicum.ewm.main.request.repository;
+
+import ru.practicum.ewm.main.request.model.Request;
+
+public interface RequestInsertRepository {
+    /**
+     * Вставка заявки, если у пользователя еще нет заявки на это событие. Повтор определяется
+     * уникальным индексом (requester_id, event_id) в том же запросе. Вставленная заявка получает
+     * сгенерированный id
+     *
+     * @return false, если заявка уже есть
+     */
+    boolean insertIfAbsent(Request request);
+}
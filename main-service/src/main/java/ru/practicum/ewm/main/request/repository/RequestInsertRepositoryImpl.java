@@ -0,0 +1,60 @@
+package ru.practicum.ewm.main.request.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import ru.practicum.ewm.main.request.model.Request;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+
+public class RequestInsertRepositoryImpl implements RequestInsertRepository {
+    private static final String INSERT_POSTGRES = "INSERT INTO requests (created, event_id, requester_id, status) " +
+            "VALUES (?, ?, ?, ?) ON CONFLICT (requester_id, event_id) DO NOTHING";
+    private static final String INSERT_STANDARD = "MERGE INTO requests r " +
+            "USING (VALUES (CAST(? AS TIMESTAMP), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS VARCHAR(50)))) " +
+            "s (created, event_id, requester_id, status) " +
+            "ON r.requester_id = s.requester_id AND r.event_id = s.event_id " +
+            "WHEN NOT MATCHED THEN INSERT (created, event_id, requester_id, status) " +
+            "VALUES (s.created, s.event_id, s.requester_id, s.status)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String insert;
+
+    public RequestInsertRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                       @Value("${spring.datasource.url}") String datasourceUrl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insert = DatabaseDriver.fromJdbcUrl(datasourceUrl) == DatabaseDriver.POSTGRESQL
+                ? INSERT_POSTGRES
+                : INSERT_STANDARD;
+    }
+
+    /**
+     * Сгенерированный id возвращается вместе со вставкой (драйвер PostgreSQL дописывает RETURNING id).
+     * MERGE не атомарен: параллельная вставка той же заявки отсекается уникальным индексом
+     */
+    @Override
+    public boolean insertIfAbsent(Request request) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            int inserted = jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(insert, new String[]{"id"});
+                ps.setTimestamp(1, Timestamp.valueOf(request.getCreated()));
+                ps.setLong(2, request.getEvent().getId());
+                ps.setLong(3, request.getRequester().getId());
+                ps.setString(4, request.getStatus().name());
+                return ps;
+            }, keyHolder);
+            if (inserted == 0) {
+                return false;
+            }
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+        request.setId(keyHolder.getKeyAs(Long.class));
+        return true;
+    }
+}
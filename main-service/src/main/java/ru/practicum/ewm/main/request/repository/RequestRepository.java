@@ -1,20 +1,38 @@
 package ru.practicum.ewm.main.request.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.main.request.model.Request;
 import ru.practicum.ewm.main.request.model.Status;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface RequestRepository extends JpaRepository<Request, Long> {
+public interface RequestRepository extends JpaRepository<Request, Long>, RequestInsertRepository {
     List<Request> findByRequesterId(long userId);
 
     List<Request> findByEventId(long eventId);
 
-    List<Request> findByEventIdInAndStatus(List<Long> eventIds, Status status);
-
     Optional<Request> findByRequesterIdAndEventId(long userId, long eventId);
 
-    long countByEventIdAndStatus(long eventId, Status status);
+    List<Request> findAllByIdIn(Collection<Long> ids);
+
+    /**
+     * Меняет статус заявок одним запросом, контекст персистентности очищается,
+     * чтобы загруженные ранее заявки не перезаписали статус при сбросе
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Request r SET r.status = :status WHERE r.id IN :ids")
+    void updateStatus(@Param("ids") Collection<Long> ids, @Param("status") Status status);
+
+    /**
+     * Отклоняет все заявки события, оставшиеся в ожидании
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Request r SET r.status = ru.practicum.ewm.main.request.model.Status.REJECTED " +
+            "WHERE r.event.id = :eventId AND r.status = ru.practicum.ewm.main.request.model.Status.PENDING")
+    int rejectPending(@Param("eventId") long eventId);
 }
@@ -19,11 +19,14 @@ import ru.practicum.ewm.main.request.model.Request;
 import ru.practicum.ewm.main.request.model.Status;
 import ru.practicum.ewm.main.request.model.UpdateRequestStatus;
 import ru.practicum.ewm.main.request.repository.RequestRepository;
+import ru.practicum.ewm.main.user.UserMapper;
 import ru.practicum.ewm.main.user.model.User;
 import ru.practicum.ewm.main.user.repository.UserRepository;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -59,73 +62,69 @@ public class RequestServiceImpl implements RequestService {
     public ParticipationRequestDto createRequest(long userId, long eventId) {
         User user = receiveUser(userId);
         Event event = receiveEvent(eventId);
-        if (event.getInitiator().equals(user)) {
+        if (event.getInitiator().getId() == user.getId()) {
             throw new ForbiddenException("Request for the event " + eventId + " is not for the initiator " + userId);
         }
-        if (requestRepository.findByRequesterIdAndEventId(userId, eventId).isPresent()) {
-            throw new ForbiddenException("User " + userId + " already has request for event " + event);
-        }
         if (event.getState() != State.PUBLISHED) {
             throw new ForbiddenException("Event " + eventId + " is not in PUBLISHED");
         }
-        if (event.getParticipantLimit() != 0) {
-            long amountOfConfirmedRequests = requestRepository.countByEventIdAndStatus(eventId, Status.CONFIRMED);
-            if (event.getParticipantLimit() <= amountOfConfirmedRequests) {
-                throw new ForbiddenException("The limit of participants has been reached");
-            }
+        if (event.getParticipantLimit() != 0 && event.getParticipantLimit() <= event.getConfirmedRequests()) {
+            throw new ForbiddenException("The limit of participants has been reached");
         }
         Request request = RequestMapper.mapToRequest(user, event);
-        if (!event.isRequestModeration() || event.getParticipantLimit() == 0) {
+        boolean confirmed = !event.isRequestModeration() || event.getParticipantLimit() == 0;
+        if (confirmed) {
             request.setStatus(Status.CONFIRMED);
         }
-        return RequestMapper.mapToParticipationRequestDto(requestRepository.save(request));
+        if (!requestRepository.insertIfAbsent(request)) {
+            throw new ForbiddenException("User " + userId + " already has request for event " + eventId);
+        }
+        // проверка лимита выше читает счетчик без блокировки, место занимается атомарно уже после вставки заявки
+        if (confirmed && eventRepository.reserveParticipant(eventId) == 0) {
+            throw new ForbiddenException("The limit of participants has been reached");
+        }
+        return RequestMapper.mapToParticipationRequestDto(request);
     }
 
+    /**
+     * Заявки загружаются одним запросом, статусы меняются групповыми UPDATE. Строка события блокируется,
+     * чтобы свободные места считались по актуальному счетчику
+     */
     @Override
     public EventRequestStatusUpdateResult updateStatusForRequestsOfEvent(long userId, long eventId, EventRequestStatusUpdateRequest eventRequestStatusUpdateRequest) {
         User user = receiveUser(userId);
-        Event event = receiveEvent(eventId);
+        Event event = eventRepository.findLockedById(eventId)
+                .orElseThrow(() -> new NotFoundException("Event with id=" + eventId + " was not found"));
         checkInitiatorOfEvent(user, event);
         if ((!event.isRequestModeration() || event.getParticipantLimit() == 0) && eventRequestStatusUpdateRequest.getStatus() == UpdateRequestStatus.CONFIRMED) {
             throw new BadRequestException("Confirmation of requests is not required for event " + eventId);
         }
-        List<Request> requests = eventRequestStatusUpdateRequest.getRequestIds().stream()
-                .map(this::receiveRequest)
-                .peek(request -> {
-                    if (!request.getEvent().equals(event)) {
-                        throw new BadRequestException("Request " + request.getId() + " has not created for event " + eventId);
-                    }
-                })
-                .peek(request -> {
-                    if (request.getStatus() != Status.PENDING) {
-                        throw new ForbiddenException("Request " + request.getId() + " is not in PENDING");
-                    }
-                })
-                .toList();
-        long amountOfConfirmedRequests = requestRepository.countByEventIdAndStatus(eventId, Status.CONFIRMED);
-        if (event.getParticipantLimit() <= amountOfConfirmedRequests) {
+        List<Request> requests = receiveRequests(eventRequestStatusUpdateRequest.getRequestIds());
+        for (Request request : requests) {
+            if (request.getEvent().getId() != event.getId()) {
+                throw new BadRequestException("Request " + request.getId() + " has not created for event " + eventId);
+            }
+            if (request.getStatus() != Status.PENDING) {
+                throw new ForbiddenException("Request " + request.getId() + " is not in PENDING");
+            }
+        }
+        if (event.getParticipantLimit() <= event.getConfirmedRequests()) {
             throw new ForbiddenException("The limit of participants has been reached");
         }
         if (eventRequestStatusUpdateRequest.getStatus() == UpdateRequestStatus.CONFIRMED) {
-            List<Request> confirmedRequests = new ArrayList<>();
-            List<Request> rejectedRequests = new ArrayList<>();
-            for (Request request : requests) {
-                if (event.getParticipantLimit() > amountOfConfirmedRequests) {
-                    request.setStatus(Status.CONFIRMED);
-                    confirmedRequests.add(request);
-                    amountOfConfirmedRequests++;
-                } else {
-                    request.setStatus(Status.REJECTED);
-                    rejectedRequests.add(request);
-                }
+            long freePlaces = event.getParticipantLimit() - event.getConfirmedRequests();
+            int confirmedCount = (int) Math.min(freePlaces, requests.size());
+            List<Request> confirmedRequests = requests.subList(0, confirmedCount);
+            List<Request> rejectedRequests = requests.subList(confirmedCount, requests.size());
+            updateStatus(confirmedRequests, Status.CONFIRMED);
+            updateStatus(rejectedRequests, Status.REJECTED);
+            eventRepository.addConfirmedRequests(eventId, confirmedCount);
+            if (confirmedCount == freePlaces) {
+                requestRepository.rejectPending(eventId);
             }
-            requestRepository.saveAll(requests);
             return RequestMapper.mapToEventRequestStatusUpdateResult(confirmedRequests, rejectedRequests);
         } else {
-            for (Request request : requests) {
-                request.setStatus(Status.REJECTED);
-            }
-            requestRepository.saveAll(requests);
+            updateStatus(requests, Status.REJECTED);
             return RequestMapper.mapToEventRequestStatusUpdateResult(List.of(), requests);
         }
     }
@@ -134,15 +133,19 @@ public class RequestServiceImpl implements RequestService {
     public ParticipationRequestDto cancelUserRequest(long userId, long requestId) {
         User user = receiveUser(userId);
         Request request = receiveRequest(requestId);
-        if (!request.getRequester().equals(user)) {
+        if (request.getRequester().getId() != user.getId()) {
             throw new BadRequestException("Request " + request.getId() + " has not made by user " + user.getId());
         }
+        if (request.getStatus() == Status.CONFIRMED) {
+            eventRepository.addConfirmedRequests(request.getEvent().getId(), -1);
+        }
         request.setStatus(Status.CANCELED);
         return RequestMapper.mapToParticipationRequestDto(requestRepository.save(request));
     }
 
     private User receiveUser(long userId) {
-        return userRepository.findById(userId)
+        return userRepository.findCachedById(userId)
+                .map(UserMapper::mapToUser)
                 .orElseThrow(() -> new NotFoundException("User with id=" + userId + " was not found"));
     }
 
@@ -151,13 +154,42 @@ public class RequestServiceImpl implements RequestService {
                 .orElseThrow(() -> new NotFoundException("Event with id=" + eventId + " was not found"));
     }
 
+    /**
+     * @return заявки в порядке переданных id, без повторов
+     */
+    private List<Request> receiveRequests(List<Long> requestIds) {
+        Map<Long, Request> requests = requestRepository.findAllByIdIn(requestIds).stream()
+                .collect(Collectors.toMap(Request::getId, Function.identity()));
+        return requestIds.stream()
+                .distinct()
+                .map(requestId -> {
+                    Request request = requests.get(requestId);
+                    if (request == null) {
+                        throw new NotFoundException("Request with id=" + requestId + " was not found");
+                    }
+                    return request;
+                })
+                .toList();
+    }
+
+    /**
+     * Статус в загруженных заявках выставляется уже после группового UPDATE, который отсоединяет их от контекста
+     */
+    private void updateStatus(List<Request> requests, Status status) {
+        if (requests.isEmpty()) {
+            return;
+        }
+        requestRepository.updateStatus(requests.stream().map(Request::getId).toList(), status);
+        requests.forEach(request -> request.setStatus(status));
+    }
+
     private Request receiveRequest(long requestId) {
         return requestRepository.findById(requestId)
                 .orElseThrow(() -> new NotFoundException("Request with id=" + requestId + " was not found"));
     }
 
     private void checkInitiatorOfEvent(User user, Event event) {
-        if (!event.getInitiator().equals(user))
+        if (event.getInitiator().getId() != user.getId())
             throw new BadRequestException("User " + user.getId() + " is not initiator of event " + event.getId());
     }
 }
@@ -16,6 +16,14 @@ public class UserMapper {
         return user;
     }
 
+    public static User mapToUser(UserDto userDto) {
+        User user = new User();
+        user.setId(userDto.getId());
+        user.setEmail(userDto.getEmail());
+        user.setName(userDto.getName());
+        return user;
+    }
+
     public static UserDto mapToUserDto(User user) {
         return new UserDto(user.getId(), user.getEmail(), user.getName());
     }
@@ -1,11 +1,13 @@
 package ru.practicum.ewm.main.user.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.ewm.main.pagination.Cursors;
 import ru.practicum.ewm.main.user.dto.NewUserRequest;
 import ru.practicum.ewm.main.user.dto.UserDto;
 import ru.practicum.ewm.main.user.service.UserService;
@@ -29,7 +31,12 @@ public class AdminUserController {
     @ResponseStatus(HttpStatus.OK)
     public List<UserDto> findUsersByRequest(@RequestParam(required = false) List<Long> ids,
                                             @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                            @RequestParam(defaultValue = "10") @Positive int size) {
+                                            @RequestParam(defaultValue = "10") @Positive int size,
+                                            @RequestParam(required = false) String cursor,
+                                            HttpServletResponse response) {
+        if (cursor != null) {
+            return Cursors.writeNextCursor(userService.findUsersByRequest(ids, cursor, size), response);
+        }
         return userService.findUsersByRequest(ids, from, size);
     }
 
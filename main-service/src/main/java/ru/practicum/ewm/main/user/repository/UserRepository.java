@@ -1,12 +1,32 @@
 package ru.practicum.ewm.main.user.repository;
 
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.ewm.main.user.dto.UserDto;
 import ru.practicum.ewm.main.user.model.User;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    /**
+     * Пользователь для проверок и ссылок в событиях, заявках и комментариях, кэш сбрасывается UserServiceImpl
+     * при удалении. В кэше лежит DTO, а не сущность: управляемый экземпляр нельзя делить между сессиями,
+     * ссылку для связи каждый вызов собирает заново UserMapper
+     */
+    @Cacheable(cacheNames = "users", unless = "#result == null")
+    @Query("SELECT new ru.practicum.ewm.main.user.dto.UserDto(u.id, u.email, u.name) FROM User u WHERE u.id = :userId")
+    Optional<UserDto> findCachedById(long userId);
 
     List<User> findByIdIn(List<Long> ids, PageRequest page);
+
+    Window<User> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    Window<User> findByIdIn(List<Long> ids, ScrollPosition position, Sort sort, Limit limit);
 }
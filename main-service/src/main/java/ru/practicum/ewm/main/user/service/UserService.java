@@ -1,5 +1,6 @@
 package ru.practicum.ewm.main.user.service;
 
+import ru.practicum.ewm.main.pagination.CursorPage;
 import ru.practicum.ewm.main.user.dto.NewUserRequest;
 import ru.practicum.ewm.main.user.dto.UserDto;
 
@@ -10,5 +11,7 @@ public interface UserService {
 
     List<UserDto> findUsersByRequest(List<Long> userIds, int from, int size);
 
+    CursorPage<UserDto> findUsersByRequest(List<Long> userIds, String cursor, int size);
+
     void deleteUserById(long catId);
 }
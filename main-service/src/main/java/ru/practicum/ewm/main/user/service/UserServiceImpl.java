@@ -3,11 +3,19 @@ package ru.practicum.ewm.main.user.service;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
-import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewm.main.event.repository.EventRepository;
 import ru.practicum.ewm.main.exception.type.NotFoundException;
+import ru.practicum.ewm.main.pagination.CursorPage;
+import ru.practicum.ewm.main.pagination.Cursors;
+import ru.practicum.ewm.main.user.UserMapper;
 import ru.practicum.ewm.main.user.dto.NewUserRequest;
 import ru.practicum.ewm.main.user.dto.UserDto;
 import ru.practicum.ewm.main.user.model.User;
@@ -21,11 +29,11 @@ import java.util.List;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class UserServiceImpl implements UserService {
     UserRepository userRepository;
-    ModelMapper modelMapper;
+    EventRepository eventRepository;
 
     @Override
     public UserDto addUser(NewUserRequest newUserRequest) {
-        return modelMapper.map(userRepository.save(modelMapper.map(newUserRequest, User.class)), UserDto.class);
+        return UserMapper.mapToUserDto(userRepository.save(UserMapper.mapToUser(newUserRequest)));
     }
 
     @Override
@@ -34,18 +42,31 @@ public class UserServiceImpl implements UserService {
         PageRequest page = PageRequest.of(from, size);
         if (userIds == null || userIds.isEmpty()) {
             return userRepository.findAll(page).stream()
-                    .map(o -> modelMapper.map(o, UserDto.class))
+                    .map(UserMapper::mapToUserDto)
                     .toList();
         }
         return userRepository.findByIdIn(userIds, page).stream()
-                .map(o -> modelMapper.map(o, UserDto.class))
+                .map(UserMapper::mapToUserDto)
                 .toList();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserDto> findUsersByRequest(List<Long> userIds, String cursor, int size) {
+        Sort sort = Sort.by("id");
+        ScrollPosition position = Cursors.decode(cursor, sort);
+        Window<User> users = userIds == null || userIds.isEmpty()
+                ? userRepository.findAllBy(position, sort, Limit.of(size))
+                : userRepository.findByIdIn(userIds, position, sort, Limit.of(size));
+        return Cursors.toPage(users, UserMapper::mapToUserDto);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = "users", key = "#userId")
     public void deleteUserById(long userId) {
         userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("User with id=" + userId + " was not found"));
+        eventRepository.subtractCommentsOfAuthor(userId);
         userRepository.deleteById(userId);
     }
 }
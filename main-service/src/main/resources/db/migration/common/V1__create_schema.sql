@@ -1,12 +1,3 @@
-DROP TABLE IF EXISTS categories CASCADE;
-DROP TABLE IF EXISTS users CASCADE;
-DROP TABLE IF EXISTS locations CASCADE;
-DROP TABLE IF EXISTS events CASCADE;
-DROP TABLE IF EXISTS compilations CASCADE;
-DROP TABLE IF EXISTS requests CASCADE;
-DROP TABLE IF EXISTS events_compilations CASCADE;
-DROP TABLE IF EXISTS comments CASCADE;
-
 CREATE TABLE categories
 (
     id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
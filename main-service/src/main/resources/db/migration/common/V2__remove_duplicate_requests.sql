@@ -0,0 +1,8 @@
+-- перед уникальным индексом (requester_id, event_id): из повторных заявок остается подтвержденная, иначе самая ранняя
+DELETE FROM requests r
+WHERE EXISTS(SELECT 1
+             FROM requests d
+             WHERE d.requester_id = r.requester_id
+               AND d.event_id = r.event_id
+               AND (CASE WHEN d.status = 'CONFIRMED' THEN 0 ELSE 1 END, d.id) <
+                   (CASE WHEN r.status = 'CONFIRMED' THEN 0 ELSE 1 END, r.id));
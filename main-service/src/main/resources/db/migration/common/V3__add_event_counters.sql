@@ -0,0 +1,8 @@
+ALTER TABLE events ADD COLUMN IF NOT EXISTS confirmed_requests BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS comments_count BIGINT DEFAULT 0 NOT NULL;
+-- заполняется кэшем просмотров из сервиса статистики
+ALTER TABLE events ADD COLUMN IF NOT EXISTS views BIGINT DEFAULT 0 NOT NULL;
+
+UPDATE events e
+SET confirmed_requests = (SELECT COUNT(*) FROM requests r WHERE r.event_id = e.id AND r.status = 'CONFIRMED'),
+    comments_count     = (SELECT COUNT(*) FROM comments c WHERE c.event_id = e.id);
@@ -0,0 +1,13 @@
+CREATE UNIQUE INDEX requests_requester_event_uq ON requests (requester_id, event_id);
+CREATE INDEX requests_event_status_idx ON requests (event_id, status);
+
+CREATE INDEX events_category_idx ON events (category_id);
+CREATE INDEX events_initiator_idx ON events (initiator_id, id);
+CREATE INDEX events_location_idx ON events (location_id);
+CREATE INDEX events_state_event_date_idx ON events (state, event_date);
+CREATE INDEX events_state_views_idx ON events (state, views);
+
+CREATE INDEX events_compilations_event_idx ON events_compilations (event_id);
+
+CREATE INDEX comments_event_idx ON comments (event_id, id);
+CREATE INDEX comments_author_idx ON comments (author_id);
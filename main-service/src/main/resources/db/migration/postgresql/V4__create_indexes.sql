@@ -0,0 +1,33 @@
+-- индексы строятся без блокировки записи в таблицы, поэтому миграция выполняется вне транзакции.
+-- Прерванная сборка оставляет индекс в состоянии INVALID, поэтому при повторном запуске он сначала удаляется
+DROP INDEX CONCURRENTLY IF EXISTS requests_requester_event_uq;
+CREATE UNIQUE INDEX CONCURRENTLY requests_requester_event_uq ON requests (requester_id, event_id);
+DROP INDEX CONCURRENTLY IF EXISTS requests_event_status_idx;
+CREATE INDEX CONCURRENTLY requests_event_status_idx ON requests (event_id, status);
+
+DROP INDEX CONCURRENTLY IF EXISTS events_category_idx;
+CREATE INDEX CONCURRENTLY events_category_idx ON events (category_id);
+DROP INDEX CONCURRENTLY IF EXISTS events_initiator_idx;
+CREATE INDEX CONCURRENTLY events_initiator_idx ON events (initiator_id, id);
+DROP INDEX CONCURRENTLY IF EXISTS events_location_idx;
+CREATE INDEX CONCURRENTLY events_location_idx ON events (location_id);
+-- фильтр администратора по состояниям и датам
+DROP INDEX CONCURRENTLY IF EXISTS events_state_event_date_idx;
+CREATE INDEX CONCURRENTLY events_state_event_date_idx ON events (state, event_date);
+-- публичный поиск смотрит только опубликованные события
+DROP INDEX CONCURRENTLY IF EXISTS events_published_event_date_idx;
+CREATE INDEX CONCURRENTLY events_published_event_date_idx ON events (event_date, id)
+    WHERE state = 'PUBLISHED';
+DROP INDEX CONCURRENTLY IF EXISTS events_published_views_idx;
+CREATE INDEX CONCURRENTLY events_published_views_idx ON events (views, id) WHERE state = 'PUBLISHED';
+DROP INDEX CONCURRENTLY IF EXISTS events_search_idx;
+CREATE INDEX CONCURRENTLY events_search_idx ON events USING GIN
+    ((setweight(to_tsvector('russian', annotation), 'A') || setweight(to_tsvector('russian', description), 'B')));
+
+DROP INDEX CONCURRENTLY IF EXISTS events_compilations_event_idx;
+CREATE INDEX CONCURRENTLY events_compilations_event_idx ON events_compilations (event_id);
+
+DROP INDEX CONCURRENTLY IF EXISTS comments_event_idx;
+CREATE INDEX CONCURRENTLY comments_event_idx ON comments (event_id, id);
+DROP INDEX CONCURRENTLY IF EXISTS comments_author_idx;
+CREATE INDEX CONCURRENTLY comments_author_idx ON comments (author_id);
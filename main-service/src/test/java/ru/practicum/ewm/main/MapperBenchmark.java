@@ -0,0 +1,143 @@
+package ru.practicum.ewm.main;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.ewm.main.category.dto.CategoryDto;
+import ru.practicum.ewm.main.category.dto.NewCategoryDto;
+import ru.practicum.ewm.main.category.mapper.CategoryMapper;
+import ru.practicum.ewm.main.category.model.Category;
+import ru.practicum.ewm.main.compilation.dto.CompilationDto;
+import ru.practicum.ewm.main.compilation.mapper.CompilationMapper;
+import ru.practicum.ewm.main.compilation.model.Compilation;
+import ru.practicum.ewm.main.event.mapper.EventMapper;
+import ru.practicum.ewm.main.event.model.Event;
+import ru.practicum.ewm.main.user.UserMapper;
+import ru.practicum.ewm.main.user.dto.NewUserRequest;
+import ru.practicum.ewm.main.user.dto.UserDto;
+import ru.practicum.ewm.main.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость отображения в CategoryServiceImpl, UserServiceImpl и CompilationServiceImpl: прежний общий бин
+ * ModelMapper против статических мапперов. Подборка - с COMPILATION_EVENTS событиями, как ее отдавал
+ * GET /compilations. Запуск с профилировщиком аллокаций:
+ * <pre>
+ * mvn -pl main-service -am test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp main-service/target/test-classes:main-service/target/classes:$(cat main-service/target/cp.txt) \
+ *     org.openjdk.jmh.Main ru.practicum.ewm.main.MapperBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    private static final int COMPILATION_EVENTS = 10;
+
+    private ModelMapper modelMapper;
+    private NewCategoryDto newCategoryDto;
+    private Category category;
+    private NewUserRequest newUserRequest;
+    private User user;
+    private Compilation compilation;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        newCategoryDto = new NewCategoryDto();
+        newCategoryDto.setName("Концерты");
+        category = new Category();
+        category.setId(1L);
+        category.setName("Концерты");
+        newUserRequest = new NewUserRequest();
+        newUserRequest.setEmail("user@mail.ru");
+        newUserRequest.setName("User");
+        user = new User();
+        user.setId(1L);
+        user.setEmail("user@mail.ru");
+        user.setName("User");
+        compilation = new Compilation();
+        compilation.setId(1L);
+        compilation.setTitle("Летние концерты");
+        compilation.setPinned(true);
+        List<Event> events = new ArrayList<>();
+        for (int i = 1; i <= COMPILATION_EVENTS; i++) {
+            Event event = new Event(i);
+            event.setAnnotation("Annotation " + i);
+            event.setTitle("Title " + i);
+            event.setCategory(category);
+            event.setInitiator(user);
+            event.setEventDate(LocalDateTime.of(2024, 7, 1, 19, 0));
+            event.setConfirmedRequests(i);
+            events.add(event);
+        }
+        compilation.setEvents(events);
+    }
+
+    @Benchmark
+    public Category newCategoryModelMapper() {
+        return modelMapper.map(newCategoryDto, Category.class);
+    }
+
+    @Benchmark
+    public Category newCategoryStaticMapper() {
+        return CategoryMapper.mapToCategory(newCategoryDto);
+    }
+
+    @Benchmark
+    public CategoryDto categoryModelMapper() {
+        return modelMapper.map(category, CategoryDto.class);
+    }
+
+    @Benchmark
+    public CategoryDto categoryStaticMapper() {
+        return CategoryMapper.mapToCategoryDto(category);
+    }
+
+    @Benchmark
+    public User newUserModelMapper() {
+        return modelMapper.map(newUserRequest, User.class);
+    }
+
+    @Benchmark
+    public User newUserStaticMapper() {
+        return UserMapper.mapToUser(newUserRequest);
+    }
+
+    @Benchmark
+    public UserDto userModelMapper() {
+        return modelMapper.map(user, UserDto.class);
+    }
+
+    @Benchmark
+    public UserDto userStaticMapper() {
+        return UserMapper.mapToUserDto(user);
+    }
+
+    @Benchmark
+    public CompilationDto compilationModelMapper() {
+        return modelMapper.map(compilation, CompilationDto.class);
+    }
+
+    @Benchmark
+    public CompilationDto compilationStaticMapper() {
+        return CompilationMapper.mapToCompilationDto(compilation, compilation.getEvents().stream()
+                .map(EventMapper::mapToEventShortDto)
+                .toList());
+    }
+}
@@ -0,0 +1,157 @@
+package ru.practicum.ewm.main.event.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.ewm.main.category.model.Category;
+import ru.practicum.ewm.main.event.mapper.EventMapper;
+import ru.practicum.ewm.main.event.model.Event;
+import ru.practicum.ewm.main.event.model.Location;
+import ru.practicum.ewm.main.event.model.QEvent;
+import ru.practicum.ewm.main.event.model.State;
+import ru.practicum.ewm.main.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Число SQL-запросов на страницу событий вместе с маппингом в DTO не зависит от размера страницы
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class EventRepositoryStatementCountTest {
+    private static final int EVENTS = 30;
+    private static final int SMALL_PAGE = 5;
+    private static final int LARGE_PAGE = 15;
+
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+    private User initiator;
+    private List<Long> eventIds;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        initiator = null;
+        eventIds = new ArrayList<>();
+        // у каждого события свои категория и место, инициаторы у половины событий разные,
+        // так что ленивая загрузка дала бы отдельный запрос на строку
+        for (int i = 0; i < EVENTS; i++) {
+            User user = persistUser();
+            if (initiator == null) {
+                initiator = user;
+            }
+            eventIds.add(persistEvent(i % 2 == 0 ? initiator : user).getId());
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void ownerPageLoadsAssociationsInOneStatement() {
+        assertStatementsPerPage(1, size -> eventRepository.findAllByInitiatorId(initiator.getId(),
+                        PageRequest.of(0, size)).stream()
+                .map(EventMapper::mapToEventFullDto)
+                .toList()
+                .size());
+    }
+
+    @Test
+    void adminPageLoadsAssociationsWithContentAndCountStatements() {
+        assertStatementsPerPage(2, size -> eventRepository.findBy(QEvent.event.state.eq(State.PUBLISHED), query -> query
+                        .project("category", "initiator", "location")
+                        .page(PageRequest.of(0, size))).stream()
+                .map(EventMapper::mapToEventFullDto)
+                .toList()
+                .size());
+    }
+
+    @Test
+    void publicPageLoadsShortDtoWithContentAndCountStatements() {
+        assertStatementsPerPage(2, size -> eventRepository.findBy(QEvent.event.state.eq(State.PUBLISHED), query -> query
+                        .project("category", "initiator")
+                        .page(PageRequest.of(0, size, Sort.by("eventDate")))).stream()
+                .map(EventMapper::mapToEventShortDto)
+                .toList()
+                .size());
+    }
+
+    @Test
+    void compilationEventsLoadInOneStatement() {
+        assertStatementsPerPage(1, size -> eventRepository.findByIdIn(eventIds.subList(0, size)).stream()
+                .map(EventMapper::mapToEventShortDto)
+                .toList()
+                .size());
+    }
+
+    @Test
+    void keysetPageLoadsAssociationsInBatches() {
+        // scroll не применяет проекцию, связи догружаются пачками по default_batch_fetch_size: по запросу на связь
+        assertStatementsPerPage(4, size -> eventRepository.findBy(QEvent.event.state.eq(State.PUBLISHED), query -> query
+                        .sortBy(Sort.by("id"))
+                        .limit(size)
+                        .scroll(ScrollPosition.keyset())).stream()
+                .map(EventMapper::mapToEventFullDto)
+                .toList()
+                .size());
+    }
+
+    private void assertStatementsPerPage(long expected, IntUnaryOperator page) {
+        assertEquals(expected, countStatements(SMALL_PAGE, page));
+        assertEquals(expected, countStatements(LARGE_PAGE, page));
+    }
+
+    private long countStatements(int size, IntUnaryOperator page) {
+        entityManager.clear();
+        statistics.clear();
+        assertEquals(size, page.applyAsInt(size));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User persistUser() {
+        User user = new User();
+        user.setName("User");
+        user.setEmail(UUID.randomUUID() + "@mail.ru");
+        return entityManager.persist(user);
+    }
+
+    private Event persistEvent(User user) {
+        Category category = new Category();
+        category.setName(UUID.randomUUID().toString().substring(0, 20));
+        Location location = new Location();
+        location.setLat(55.75f);
+        location.setLon(37.62f);
+
+        Event event = new Event();
+        event.setAnnotation("Annotation " + UUID.randomUUID());
+        event.setDescription("Description");
+        event.setTitle("Title");
+        event.setCategory(entityManager.persist(category));
+        event.setLocation(entityManager.persist(location));
+        event.setInitiator(user);
+        event.setEventDate(LocalDateTime.now().plusDays(1));
+        event.setCreated(LocalDateTime.now());
+        event.setPublished(LocalDateTime.now());
+        event.setState(State.PUBLISHED);
+        return entityManager.persist(event);
+    }
+}
@@ -0,0 +1,189 @@
+package ru.practicum.ewm.main.request.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.ewm.main.category.model.Category;
+import ru.practicum.ewm.main.category.repository.CategoryRepository;
+import ru.practicum.ewm.main.event.model.Event;
+import ru.practicum.ewm.main.event.model.Location;
+import ru.practicum.ewm.main.event.model.State;
+import ru.practicum.ewm.main.event.repository.EventRepository;
+import ru.practicum.ewm.main.event.repository.LocationRepository;
+import ru.practicum.ewm.main.exception.type.ForbiddenException;
+import ru.practicum.ewm.main.request.model.Status;
+import ru.practicum.ewm.main.request.repository.RequestRepository;
+import ru.practicum.ewm.main.user.model.User;
+import ru.practicum.ewm.main.user.repository.UserRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class RequestServiceImplConcurrencyTest {
+    private static final int PARTICIPANT_LIMIT = 50;
+    private static final int REQUESTERS = 2000;
+    private static final int THREADS = 32;
+    // в 5 раз ниже измеренных ~250 заявок в секунду на H2 в 32 потока: запас на медленную машину сборки,
+    // но сериализация всех заявок через одну блокировку или повторы транзакций его не пройдут
+    private static final int MIN_REQUESTS_PER_SECOND = 50;
+
+    @Autowired
+    private RequestService requestService;
+    @Autowired
+    private RequestRepository requestRepository;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private LocationRepository locationRepository;
+
+    private final List<Event> events = new ArrayList<>();
+    private final List<User> users = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        for (Event event : events) {
+            requestRepository.deleteAllInBatch(requestRepository.findByEventId(event.getId()));
+        }
+        eventRepository.deleteAllInBatch(events);
+        categoryRepository.deleteAllInBatch(events.stream().map(Event::getCategory).toList());
+        locationRepository.deleteAllInBatch(events.stream().map(Event::getLocation).toList());
+        userRepository.deleteAllInBatch(users);
+    }
+
+    @Test
+    void createRequestNeverExceedsParticipantLimit() throws Exception {
+        Event event = publishedEvent(PARTICIPANT_LIMIT);
+        List<User> requesters = saveUsers(REQUESTERS);
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        Duration elapsed;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (User requester : requesters) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        requestService.createRequest(requester.getId(), event.getId());
+                        created.incrementAndGet();
+                    } catch (ForbiddenException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            long startedAt = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+        } finally {
+            executor.shutdown();
+        }
+
+        long requestsPerSecond = REQUESTERS * 1000L / Math.max(elapsed.toMillis(), 1);
+        assertTrue(requestsPerSecond >= MIN_REQUESTS_PER_SECOND,
+                "Throughput " + requestsPerSecond + " requests/s is below " + MIN_REQUESTS_PER_SECOND);
+        assertEquals(PARTICIPANT_LIMIT, created.get());
+        assertEquals(REQUESTERS - PARTICIPANT_LIMIT, rejected.get());
+        assertEquals(PARTICIPANT_LIMIT, eventRepository.findById(event.getId()).orElseThrow().getConfirmedRequests());
+        assertEquals(PARTICIPANT_LIMIT, requestRepository.findByEventId(event.getId()).stream()
+                .filter(request -> request.getStatus() == Status.CONFIRMED)
+                .count());
+    }
+
+    @Test
+    void parallelDuplicateRequestsCreateOneRequest() throws Exception {
+        Event event = publishedEvent(0);
+        User requester = saveUsers(1).get(0);
+
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        requestService.createRequest(requester.getId(), event.getId());
+                        created.incrementAndGet();
+                    } catch (ForbiddenException ignored) {
+                        // повторная заявка
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, created.get());
+        assertEquals(1, requestRepository.findByEventId(event.getId()).size());
+    }
+
+    private Event publishedEvent(int participantLimit) {
+        User initiator = saveUsers(1).get(0);
+        Category category = new Category();
+        category.setName(UUID.randomUUID().toString().substring(0, 20));
+        Location location = new Location();
+        location.setLat(55.75f);
+        location.setLon(37.62f);
+
+        Event event = new Event();
+        event.setAnnotation("Annotation " + UUID.randomUUID());
+        event.setDescription("Description");
+        event.setTitle("Title");
+        event.setCategory(categoryRepository.save(category));
+        event.setLocation(locationRepository.save(location));
+        event.setInitiator(initiator);
+        event.setParticipantLimit(participantLimit);
+        event.setRequestModeration(false);
+        event.setEventDate(LocalDateTime.now().plusDays(1));
+        event.setCreated(LocalDateTime.now());
+        event.setPublished(LocalDateTime.now());
+        event.setState(State.PUBLISHED);
+        Event saved = eventRepository.save(event);
+        events.add(saved);
+        return saved;
+    }
+
+    private List<User> saveUsers(int count) {
+        List<User> newUsers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setName("User " + i);
+            user.setEmail(UUID.randomUUID() + "@mail.ru");
+            newUsers.add(user);
+        }
+        List<User> saved = userRepository.saveAll(newUsers);
+        users.addAll(saved);
+        return saved;
+    }
+}
@@ -0,0 +1,186 @@
+package ru.practicum.ewm.stat.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stat.dto.EndpointHitDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отправка хитов в сервис статистики. По умолчанию хит отправляется синхронно и виден в статистике
+ * сразу после ответа, как того требует спецификация API; в очередь он попадает, только если сервис
+ * статистики недоступен. При stats.client.hits.async=true хиты складываются в ограниченную очередь
+ * и фоновый поток отправляет их пачками: запрос не ждет сервис статистики, но хит попадает
+ * в статистику с задержкой до linger-ms плюс время отправки
+ */
+@Slf4j
+@Component
+public class HitDispatcher {
+    private final StatClient statClient;
+    private final BlockingQueue<EndpointHitDto> queue;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final long shutdownTimeoutMs;
+    private final HitOverflowPolicy overflowPolicy;
+    private final boolean async;
+    private final Counter sentCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public HitDispatcher(StatClient statClient,
+                         MeterRegistry meterRegistry,
+                         @Value("${stats.client.hits.queue-capacity:10000}") int queueCapacity,
+                         @Value("${stats.client.hits.batch-size:100}") int batchSize,
+                         @Value("${stats.client.hits.linger-ms:100}") long lingerMs,
+                         @Value("${stats.client.hits.shutdown-timeout-ms:5000}") long shutdownTimeoutMs,
+                         @Value("${stats.client.hits.overflow-policy:DROP_OLDEST}") HitOverflowPolicy overflowPolicy,
+                         @Value("${stats.client.hits.async:false}") boolean async) {
+        if (queueCapacity <= 0 || batchSize <= 0 || lingerMs <= 0) {
+            throw new IllegalArgumentException("Queue capacity, batch size and linger time must be positive");
+        }
+        this.statClient = statClient;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.overflowPolicy = overflowPolicy;
+        this.async = async;
+        Gauge.builder("stats.client.hits.queued", queue, BlockingQueue::size)
+                .description("Hits waiting to be sent to the stats server")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("stats.client.hits.sent").register(meterRegistry);
+        this.droppedCounter = Counter.builder("stats.client.hits.dropped").register(meterRegistry);
+        this.failedCounter = Counter.builder("stats.client.hits.failed").register(meterRegistry);
+        this.flusher = new Thread(this::flushLoop, "stat-hit-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.join(TimeUnit.NANOSECONDS.toMillis(lingerNanos) + shutdownTimeoutMs);
+        if (!queue.isEmpty()) {
+            log.warn("{} hits were not sent to the stats server before shutdown", queue.size());
+        }
+    }
+
+    /**
+     * Отправить хит способом, заданным stats.client.hits.async
+     */
+    public void dispatch(EndpointHitDto endpointHitDto) {
+        if (async) {
+            enqueue(endpointHitDto);
+        } else {
+            send(endpointHitDto);
+        }
+    }
+
+    /**
+     * Отправить хит синхронно независимо от stats.client.hits.async: нужно, когда ответ на запрос
+     * должен учитывать его собственный хит. Если сервис статистики недоступен, хит ставится в очередь
+     */
+    public void send(EndpointHitDto endpointHitDto) {
+        try {
+            statClient.hit(endpointHitDto);
+            sentCounter.increment();
+        } catch (RuntimeException e) {
+            log.warn("Failed to send hit to the stats server, it is queued: {}", e.getMessage());
+            enqueue(endpointHitDto);
+        }
+    }
+
+    /**
+     * Поставить хит в очередь на отправку, не дожидаясь ответа сервиса статистики
+     */
+    private void enqueue(EndpointHitDto endpointHitDto) {
+        switch (overflowPolicy) {
+            case DROP_NEWEST -> {
+                if (!queue.offer(endpointHitDto)) {
+                    droppedCounter.increment();
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(endpointHitDto)) {
+                    if (queue.poll() != null) {
+                        droppedCounter.increment();
+                    }
+                }
+            }
+            case BLOCK -> {
+                try {
+                    queue.put(endpointHitDto);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedCounter.increment();
+                }
+            }
+        }
+    }
+
+    private void flushLoop() {
+        List<EndpointHitDto> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                log.warn("Hit flusher was interrupted", e);
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                send(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Набирает пачку, пока она не заполнится или не истечет время ожидания с момента первого хита
+     */
+    private void collectBatch(List<EndpointHitDto> batch) throws InterruptedException {
+        EndpointHitDto first = queue.poll(lingerNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            EndpointHitDto next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void send(List<EndpointHitDto> batch) {
+        try {
+            statClient.hit(List.copyOf(batch));
+            sentCounter.increment(batch.size());
+        } catch (RuntimeException e) {
+            failedCounter.increment(batch.size());
+            log.warn("Failed to send {} hits to the stats server: {}", batch.size(), e.getMessage());
+        }
+    }
+}
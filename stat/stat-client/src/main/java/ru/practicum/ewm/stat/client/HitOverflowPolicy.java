@@ -0,0 +1,10 @@
+package ru.practicum.ewm.stat.client;
+
+/**
+ * Поведение очереди хитов при переполнении
+ */
+public enum HitOverflowPolicy {
+    DROP_OLDEST,
+    DROP_NEWEST,
+    BLOCK
+}
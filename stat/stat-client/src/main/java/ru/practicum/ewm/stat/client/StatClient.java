@@ -8,11 +8,13 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.util.UriComponentsBuilder;
 import ru.practicum.ewm.stat.dto.EndpointHitDto;
+import ru.practicum.ewm.stat.dto.StatsQueryDto;
 import ru.practicum.ewm.stat.dto.ViewStatsDto;
 import ru.practicum.ewm.stat.exception.StatClientException;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Component
 public class StatClient {
@@ -44,6 +46,26 @@ public class StatClient {
                 .toBodilessEntity();
     }
 
+    public int hit(List<EndpointHitDto> endpointHitDtos) {
+        String uri = UriComponentsBuilder.fromHttpUrl(serverUri)
+                .path("/hits/batch")
+                .toUriString();
+
+        Integer count = restClient.post()
+                .uri(uri)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(endpointHitDtos)
+                .retrieve()
+                .onStatus(HttpStatusCode::is4xxClientError, (request, response) -> {
+                    throw new StatClientException(response.getStatusCode().value(), response.getBody().toString());
+                })
+                .onStatus(HttpStatusCode::is5xxServerError, (request, response) -> {
+                    throw new StatClientException(response.getStatusCode().value(), response.getBody().toString());
+                })
+                .body(Integer.class);
+        return count == null ? 0 : count;
+    }
+
     public List<ViewStatsDto> getStat(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
         String uri = UriComponentsBuilder.fromHttpUrl(serverUri)
                 .path("/stats")
@@ -65,4 +87,28 @@ public class StatClient {
                 .body(new ParameterizedTypeReference<>() {
                 });
     }
-}
\ No newline at end of file
+
+    /**
+     * Количество просмотров по uri одним запросом, список uri (или пар uri и начала интервала) передается в теле запроса
+     */
+    public Map<String, Long> getHits(StatsQueryDto statsQueryDto) {
+        String uri = UriComponentsBuilder.fromHttpUrl(serverUri)
+                .path("/stats/query")
+                .toUriString();
+
+        Map<String, Long> hits = restClient.post()
+                .uri(uri)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(statsQueryDto)
+                .retrieve()
+                .onStatus(HttpStatusCode::is4xxClientError, (request, response) -> {
+                    throw new StatClientException(response.getStatusCode().value(), response.getBody().toString());
+                })
+                .onStatus(HttpStatusCode::is5xxServerError, (request, response) -> {
+                    throw new StatClientException(response.getStatusCode().value(), response.getBody().toString());
+                })
+                .body(new ParameterizedTypeReference<>() {
+                });
+        return hits == null ? Map.of() : hits;
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.ewm.stat.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Запрос статистики в теле POST /stats/query. Либо uris и uriPrefixes с общим start (если не заданы ни uris,
+ * ни uriPrefixes, учитываются все uri), либо uriStarts, где у каждого uri свое начало интервала
+ */
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StatsQueryDto {
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    LocalDateTime start;
+
+    @NotNull(message = "Field 'end' cannot be null")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    LocalDateTime end;
+
+    List<String> uris;
+
+    List<String> uriPrefixes;
+
+    List<@Valid UriStartDto> uriStarts;
+
+    boolean unique;
+
+    Boolean exact;
+}
@@ -0,0 +1,25 @@
+package ru.practicum.ewm.stat.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * Uri и момент, с которого для него считаются просмотры
+ */
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@AllArgsConstructor
+@NoArgsConstructor
+public class UriStartDto {
+    @NotBlank(message = "Field 'uri' cannot be null, empty or blank")
+    String uri;
+
+    @NotNull(message = "Field 'start' cannot be null")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    LocalDateTime start;
+}
@@ -0,0 +1,23 @@
+package ru.practicum.ewm.stat.server.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Миграции применяются только при db.migration.mode=migrate, иначе схема лишь проверяется
+ */
+@Configuration
+public class FlywayConfig {
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(@Value("${db.migration.mode:validate}") String mode) {
+        return flyway -> {
+            switch (mode) {
+                case "validate" -> flyway.validate();
+                case "migrate" -> flyway.migrate();
+                default -> throw new IllegalArgumentException("Unknown db.migration.mode: " + mode);
+            }
+        };
+    }
+}
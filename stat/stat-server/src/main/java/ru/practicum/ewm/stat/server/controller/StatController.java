@@ -1,42 +1,122 @@
 package ru.practicum.ewm.stat.server.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.ewm.stat.dto.EndpointHitDto;
+import ru.practicum.ewm.stat.dto.StatsQueryDto;
+import ru.practicum.ewm.stat.dto.UriStartDto;
 import ru.practicum.ewm.stat.dto.ViewStatsDto;
+import ru.practicum.ewm.stat.server.mapper.EndpointHitMapper;
+import ru.practicum.ewm.stat.server.mapper.ViewStatsMapper;
 import ru.practicum.ewm.stat.server.model.EndpointHit;
 import ru.practicum.ewm.stat.server.service.EndpointHitService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
 public class StatController {
     private final EndpointHitService endpointHitService;
-    private final ModelMapper modelMapper;
+    private final ObjectMapper objectMapper;
     private static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
 
     @PostMapping("/hit")
     @ResponseStatus(HttpStatus.CREATED)
     public EndpointHitDto addHit(@Valid @RequestBody EndpointHitDto endpointHitDto) {
-        EndpointHit endpointHit = endpointHitService.create(modelMapper.map(endpointHitDto, EndpointHit.class));
-        return modelMapper.map(endpointHit, EndpointHitDto.class);
+        EndpointHit endpointHit = endpointHitService.create(EndpointHitMapper.mapToEndpointHit(endpointHitDto));
+        return EndpointHitMapper.mapToEndpointHitDto(endpointHit);
+    }
+
+    @PostMapping("/hits/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public int addHits(@RequestBody List<@Valid EndpointHitDto> endpointHitDtos) {
+        return endpointHitService.createAll(endpointHitDtos.stream()
+                .map(EndpointHitMapper::mapToEndpointHit)
+                .toList());
     }
 
     @GetMapping("/stats")
     public List<ViewStatsDto> getStats(
+            @RequestParam @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime start,
+            @RequestParam @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime end,
+            @RequestParam(required = false) List<String> uris,
+            @RequestParam(required = false, defaultValue = "false") boolean unique,
+            @RequestParam(required = false) Boolean exact) {
+        return endpointHitService.getStats(start, end, uris, null, unique, exact).stream()
+                .map(ViewStatsMapper::mapToViewStatsDto)
+                .toList();
+    }
+
+    /**
+     * Режим stream=true для больших выборок: строки пишутся в ответ по мере чтения из базы, без сборки списка
+     * в памяти. Ошибка после начала записи уже не превращается в ответ с ошибкой, а обрывает ответ
+     * с неполным JSON, поэтому по умолчанию статистика отдается целиком
+     */
+    @GetMapping(value = "/stats", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamStats(
             @RequestParam @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime start,
             @RequestParam @DateTimeFormat(pattern = DATE_TIME_PATTERN)  LocalDateTime end,
             @RequestParam(required = false) List<String> uris,
-            @RequestParam(required = false, defaultValue = "false") boolean unique) {
+            @RequestParam(required = false, defaultValue = "false") boolean unique,
+            @RequestParam(required = false) Boolean exact) {
+        // после начала записи ответ уже не заменить на ошибку, поэтому интервал проверяется до нее
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("end must be greater than start");
+        }
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.writeStartArray();
+                endpointHitService.streamStats(start, end, uris, null, unique, exact, viewStats -> {
+                    try {
+                        generator.writeObject(ViewStatsMapper.mapToViewStatsDto(viewStats));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
 
-        return endpointHitService.getStats(start, end, uris, unique).stream().map(
-                endpointHit -> modelMapper.map(endpointHit, ViewStatsDto.class)).toList();
+    /**
+     * Статистика для большого набора uri: фильтр передается в теле запроса, а не в строке запроса
+     */
+    @PostMapping("/stats/query")
+    public Map<String, Long> queryStats(@Valid @RequestBody StatsQueryDto statsQueryDto) {
+        if (statsQueryDto.getUriStarts() != null) {
+            if (statsQueryDto.getStart() != null || statsQueryDto.getUris() != null
+                    || statsQueryDto.getUriPrefixes() != null) {
+                throw new IllegalArgumentException("uriStarts cannot be combined with start, uris or uriPrefixes");
+            }
+            Map<String, LocalDateTime> uriStarts = statsQueryDto.getUriStarts().stream()
+                    .collect(Collectors.toMap(UriStartDto::getUri, UriStartDto::getStart,
+                            BinaryOperator.minBy(Comparator.naturalOrder())));
+            return endpointHitService.getHitsByUriStarts(uriStarts, statsQueryDto.getEnd(), statsQueryDto.isUnique(),
+                    statsQueryDto.getExact());
+        }
+        if (statsQueryDto.getStart() == null) {
+            throw new IllegalArgumentException("start cannot be null");
+        }
+        return endpointHitService.getHitsByUri(statsQueryDto.getStart(), statsQueryDto.getEnd(), statsQueryDto.getUris(),
+                statsQueryDto.getUriPrefixes(), statsQueryDto.isUnique(), statsQueryDto.getExact());
     }
 }
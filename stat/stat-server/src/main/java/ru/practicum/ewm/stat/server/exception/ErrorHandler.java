@@ -18,6 +18,11 @@ public class ErrorHandler {
         return buildApiError(e, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiError> handleServiceUnavailableException(ServiceUnavailableException e) {
+        return buildApiError(e, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler
     public ResponseEntity<ApiError> handleInternalServerError(final Exception e, HttpStatus status) {
         return buildApiError(e, status);
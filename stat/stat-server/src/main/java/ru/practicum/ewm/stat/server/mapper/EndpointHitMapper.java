@@ -0,0 +1,23 @@
+package ru.practicum.ewm.stat.server.mapper;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.practicum.ewm.stat.dto.EndpointHitDto;
+import ru.practicum.ewm.stat.server.model.EndpointHit;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class EndpointHitMapper {
+    public static EndpointHit mapToEndpointHit(EndpointHitDto endpointHitDto) {
+        EndpointHit endpointHit = new EndpointHit();
+        endpointHit.setApp(endpointHitDto.getApp());
+        endpointHit.setUri(endpointHitDto.getUri());
+        endpointHit.setIp(endpointHitDto.getIp());
+        endpointHit.setTimestamp(endpointHitDto.getTimestamp());
+        return endpointHit;
+    }
+
+    public static EndpointHitDto mapToEndpointHitDto(EndpointHit endpointHit) {
+        return new EndpointHitDto(endpointHit.getApp(), endpointHit.getUri(), endpointHit.getIp(),
+                endpointHit.getTimestamp());
+    }
+}
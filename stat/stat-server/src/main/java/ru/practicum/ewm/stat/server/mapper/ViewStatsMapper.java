@@ -0,0 +1,13 @@
+package ru.practicum.ewm.stat.server.mapper;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.practicum.ewm.stat.dto.ViewStatsDto;
+import ru.practicum.ewm.stat.server.model.ViewStats;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ViewStatsMapper {
+    public static ViewStatsDto mapToViewStatsDto(ViewStats viewStats) {
+        return new ViewStatsDto(viewStats.getApp(), viewStats.getUri(), viewStats.getHits());
+    }
+}
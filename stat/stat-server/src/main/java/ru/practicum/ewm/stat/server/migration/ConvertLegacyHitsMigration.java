@@ -0,0 +1,190 @@
+package ru.practicum.ewm.stat.server.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stat.server.model.HyperLogLog;
+import ru.practicum.ewm.stat.server.model.IpAddress;
+import ru.practicum.ewm.stat.server.model.RollupBucket;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Перенос хитов из строковой таблицы hits_v1 в словарную hits с заполнением агрегатов.
+ * Хиты читаются по порядку времени, поэтому в памяти держатся агрегаты только текущих минуты, часа и суток.
+ * Хиты без времени или с ip, который не разбирается как адрес, перенести нельзя: они копируются
+ * в hits_v1_rejected с причиной. Сама hits_v1 здесь не удаляется, это делает следующая миграция
+ */
+@Slf4j
+@Component
+public class ConvertLegacyHitsMigration implements JavaMigration {
+    private static final int BATCH_SIZE = 500;
+    private static final String REJECT_WITHOUT_TIME = "INSERT INTO hits_v1_rejected " +
+            "(id, app, uri, ip, request_time, reason) " +
+            "SELECT id, app, uri, ip, request_time, 'NO_REQUEST_TIME' FROM hits_v1 WHERE request_time IS NULL";
+    private static final String SELECT_LEGACY = "SELECT h.id, h.app, h.uri, h.ip, h.request_time, " +
+            "a.id AS app_id, u.id AS uri_id " +
+            "FROM hits_v1 h " +
+            "JOIN apps a ON a.name = h.app " +
+            "JOIN uris u ON u.uri = h.uri " +
+            "WHERE h.request_time IS NOT NULL " +
+            "ORDER BY h.request_time, h.id";
+    private static final String INSERT_HIT = "INSERT INTO hits (app_id, uri_id, ip, request_time) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_REJECTED = "INSERT INTO hits_v1_rejected " +
+            "(id, app, uri, ip, request_time, reason) VALUES (?, ?, ?, ?, ?, 'INVALID_IP')";
+    private static final String INSERT_ROLLUP = "INSERT INTO %s (app_id, uri_id, bucket, hits, ip_sketch) " +
+            "VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_ROLLUP_UNSKETCHED = "INSERT INTO %s (app_id, uri_id, bucket, hits) " +
+            "VALUES (?, ?, ?, ?)";
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("3");
+    }
+
+    @Override
+    public String getDescription() {
+        return "convert legacy hits";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        Map<RollupBucket, Rollup> rollups = new EnumMap<>(RollupBucket.class);
+        long converted = 0;
+        long withoutTime;
+        long invalidIp = 0;
+        try (Statement statement = connection.createStatement()) {
+            withoutTime = statement.executeUpdate(REJECT_WITHOUT_TIME);
+        }
+        try (PreparedStatement select = connection.prepareStatement(SELECT_LEGACY);
+             PreparedStatement insert = connection.prepareStatement(INSERT_HIT);
+             PreparedStatement reject = connection.prepareStatement(INSERT_REJECTED)) {
+            select.setFetchSize(BATCH_SIZE);
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp requestTime = rs.getTimestamp("request_time");
+                    byte[] ip;
+                    try {
+                        ip = IpAddress.toBytes(rs.getString("ip"));
+                    } catch (IllegalArgumentException e) {
+                        reject.setLong(1, rs.getLong("id"));
+                        reject.setString(2, rs.getString("app"));
+                        reject.setString(3, rs.getString("uri"));
+                        reject.setString(4, rs.getString("ip"));
+                        reject.setTimestamp(5, requestTime);
+                        reject.addBatch();
+                        if (++invalidIp % BATCH_SIZE == 0) {
+                            reject.executeBatch();
+                        }
+                        continue;
+                    }
+                    int appId = rs.getInt("app_id");
+                    int uriId = rs.getInt("uri_id");
+                    insert.setInt(1, appId);
+                    insert.setInt(2, uriId);
+                    insert.setBytes(3, ip);
+                    insert.setTimestamp(4, requestTime);
+                    insert.addBatch();
+                    if (++converted % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                    for (RollupBucket bucket : RollupBucket.values()) {
+                        rollups.computeIfAbsent(bucket, Rollup::new)
+                                .add(connection, appId, uriId, requestTime.toLocalDateTime(), ip);
+                    }
+                }
+            }
+            insert.executeBatch();
+            reject.executeBatch();
+        }
+        for (Rollup rollup : rollups.values()) {
+            rollup.flush(connection);
+        }
+        if (withoutTime + invalidIp > 0) {
+            log.warn("Converted {} legacy hits, copied to hits_v1_rejected {} hits without request time " +
+                    "and {} with invalid ip", converted, withoutTime, invalidIp);
+        } else {
+            log.info("Converted {} legacy hits", converted);
+        }
+    }
+
+    /**
+     * Агрегаты одной гранулярности за текущий интервал, записываются при переходе к следующему интервалу
+     */
+    private static class Rollup {
+        private final RollupBucket bucket;
+        private final Map<Map.Entry<Integer, Integer>, Counter> counters = new HashMap<>();
+        private LocalDateTime current;
+
+        Rollup(RollupBucket bucket) {
+            this.bucket = bucket;
+        }
+
+        void add(Connection connection, int appId, int uriId, LocalDateTime time, byte[] ip) throws SQLException {
+            LocalDateTime floor = bucket.floor(time);
+            if (!floor.equals(current)) {
+                flush(connection);
+                current = floor;
+            }
+            Counter counter = counters.computeIfAbsent(Map.entry(appId, uriId),
+                    key -> new Counter(bucket.isSketched() ? new HyperLogLog() : null));
+            counter.hits++;
+            if (counter.sketch != null) {
+                counter.sketch.add(ip);
+            }
+        }
+
+        void flush(Connection connection) throws SQLException {
+            if (counters.isEmpty()) {
+                return;
+            }
+            String sql = String.format(bucket.isSketched() ? INSERT_ROLLUP : INSERT_ROLLUP_UNSKETCHED,
+                    bucket.getTable());
+            try (PreparedStatement insert = connection.prepareStatement(sql)) {
+                for (Map.Entry<Map.Entry<Integer, Integer>, Counter> entry : counters.entrySet()) {
+                    insert.setInt(1, entry.getKey().getKey());
+                    insert.setInt(2, entry.getKey().getValue());
+                    insert.setTimestamp(3, Timestamp.valueOf(current));
+                    insert.setLong(4, entry.getValue().hits);
+                    if (entry.getValue().sketch != null) {
+                        insert.setBytes(5, entry.getValue().sketch.toBytes());
+                    }
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            counters.clear();
+        }
+    }
+
+    private static class Counter {
+        private final HyperLogLog sketch;
+        private long hits;
+
+        Counter(HyperLogLog sketch) {
+            this.sketch = sketch;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package ru.practicum.ewm.stat.server.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Индексы hits, создаются после переноса старых хитов, чтобы не обновлять их при массовой вставке.
+ * В PostgreSQL индекс секционированной таблицы нельзя построить CONCURRENTLY, поэтому он создается
+ * на самой hits (ON ONLY, пока невалидный), индексы секций строятся CONCURRENTLY без блокировки записи
+ * и присоединяются к нему, после присоединения последней секции индекс hits становится валидным.
+ * Миграция выполняется вне транзакции и при повторном запуске пропускает готовые индексы,
+ * а невалидные индексы секций, оставшиеся от прерванной сборки, удаляет и строит заново
+ */
+@Slf4j
+@Component
+public class CreateHitIndexesMigration implements JavaMigration {
+    private static final List<HitIndex> INDEXES = List.of(
+            // выборки по uri за интервал и подсчет уникальных ip без обращения к таблице
+            new HitIndex("uri_request_time_idx", "(uri_id, request_time) INCLUDE (app_id, ip)",
+                    "(uri_id, request_time)"),
+            // выборки без фильтра по uri: хиты пишутся почти по порядку времени, поэтому хватает BRIN
+            new HitIndex("request_time_idx", "USING BRIN (request_time)", "(request_time)"));
+    private static final String SELECT_PARTITIONS = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'hits' " +
+            "ORDER BY c.relname";
+    private static final String SELECT_INDEX_VALID = "SELECT i.indisvalid FROM pg_index i " +
+            "JOIN pg_class c ON c.oid = i.indexrelid " +
+            "WHERE c.relname = ?";
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("5");
+    }
+
+    @Override
+    public String getDescription() {
+        return "create hit indexes";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (DatabaseDriver.fromJdbcUrl(connection.getMetaData().getURL()) != DatabaseDriver.POSTGRESQL) {
+            for (HitIndex index : INDEXES) {
+                execute(connection, "CREATE INDEX IF NOT EXISTS hits_" + index.name() + " ON hits "
+                        + index.h2Definition());
+            }
+            return;
+        }
+        List<String> partitions = partitions(connection);
+        for (HitIndex index : INDEXES) {
+            String parentName = "hits_" + index.name();
+            if (Boolean.TRUE.equals(isValid(connection, parentName))) {
+                continue;
+            }
+            execute(connection, "CREATE INDEX IF NOT EXISTS " + parentName + " ON ONLY hits "
+                    + index.postgresDefinition());
+            for (String partition : partitions) {
+                String name = partition + "_" + index.name();
+                Boolean valid = isValid(connection, name);
+                if (Boolean.FALSE.equals(valid)) {
+                    execute(connection, "DROP INDEX CONCURRENTLY " + name);
+                }
+                if (!Boolean.TRUE.equals(valid)) {
+                    execute(connection, "CREATE INDEX CONCURRENTLY " + name + " ON " + partition + " "
+                            + index.postgresDefinition());
+                }
+                execute(connection, "ALTER INDEX " + parentName + " ATTACH PARTITION " + name);
+            }
+            log.info("Created index {} on {} partitions of hits", parentName, partitions.size());
+        }
+    }
+
+    private List<String> partitions(Connection connection) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(SELECT_PARTITIONS)) {
+            while (rs.next()) {
+                partitions.add(rs.getString(1));
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * null - индекса нет
+     */
+    private Boolean isValid(Connection connection, String indexName) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(SELECT_INDEX_VALID)) {
+            select.setString(1, indexName);
+            try (ResultSet rs = select.executeQuery()) {
+                return rs.next() ? rs.getBoolean(1) : null;
+            }
+        }
+    }
+
+    private void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private record HitIndex(String name, String postgresDefinition, String h2Definition) {
+    }
+}
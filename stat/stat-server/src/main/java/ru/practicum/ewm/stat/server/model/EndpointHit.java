@@ -1,6 +1,5 @@
 package ru.practicum.ewm.stat.server.model;
 
-import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
@@ -8,17 +7,10 @@ import java.time.LocalDateTime;
 
 @Data
 @FieldDefaults(level = AccessLevel.PRIVATE)
-@Entity
-@Table(name = "hits")
 @NoArgsConstructor
 public class EndpointHit {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    Long id;
     String app;
     String uri;
     String ip;
-
-    @Column(name = "request_time")
     LocalDateTime timestamp;
 }
@@ -0,0 +1,110 @@
+package ru.practicum.ewm.stat.server.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * HyperLogLog-скетч для оценки количества уникальных ip (в представлении {@link IpAddress}).
+ * <p>
+ * 2^12 = 4096 регистров дают стандартную ошибку 1.04 / sqrt(4096) ≈ 1.6%: примерно в 95% случаев оценка
+ * отличается от точного значения не больше чем на 3.3%. До ~10 000 уникальных значений используется
+ * linear counting, который на десятках и сотнях ip практически точен. Скетчи объединяются поэлементным
+ * максимумом регистров, поэтому оценка для произвольного интервала получается слиянием скетчей его частей.
+ * <p>
+ * В базе скетч хранится разреженно (номер регистра и значение), пока так получается компактнее
+ */
+public class HyperLogLog {
+    private static final int PRECISION = 12;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final int MAX_RANK = Long.SIZE - PRECISION + 1;
+    private static final byte SPARSE = 0;
+    private static final byte DENSE = 1;
+    private static final int SPARSE_ENTRY_SIZE = Short.BYTES + Byte.BYTES;
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    public void add(byte[] value) {
+        long hash = hash(value);
+        int index = (int) (hash >>> (Long.SIZE - PRECISION));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << PRECISION) + 1, MAX_RANK);
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+        double estimate = alpha * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                nonZero++;
+            }
+        }
+        if (nonZero * SPARSE_ENTRY_SIZE >= REGISTERS) {
+            return ByteBuffer.allocate(1 + REGISTERS).put(DENSE).put(registers).array();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 + nonZero * SPARSE_ENTRY_SIZE).put(SPARSE);
+        for (int i = 0; i < REGISTERS; i++) {
+            if (registers[i] != 0) {
+                buffer.putShort((short) i).put(registers[i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog sketch = new HyperLogLog();
+        if (bytes == null || bytes.length == 0) {
+            return sketch;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.get() == DENSE) {
+            buffer.get(sketch.registers);
+        } else {
+            while (buffer.hasRemaining()) {
+                sketch.registers[buffer.getShort()] = buffer.get();
+            }
+        }
+        return sketch;
+    }
+
+    /**
+     * FNV-1a с финализатором MurmurHash3, чтобы старшие биты хэша были равномерными
+     */
+    private static long hash(byte[] value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.ewm.stat.server.model;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Компактное представление ip: 4 байта для IPv4 и 16 для IPv6.
+ * Разбираются только литералы адресов, DNS-запросы не выполняются
+ */
+public class IpAddress {
+    private IpAddress() {
+    }
+
+    public static byte[] toBytes(String ip) {
+        byte[] ipv4 = parseIpv4(ip);
+        if (ipv4 != null) {
+            return ipv4;
+        }
+        // InetAddress разбирает строку из шестнадцатеричных цифр, ':' и '.' как литерал, не обращаясь к DNS
+        if (ip.indexOf(':') >= 0 && ip.chars().allMatch(c -> Character.digit(c, 16) >= 0 || c == ':' || c == '.')) {
+            try {
+                return InetAddress.getByName(ip).getAddress();
+            } catch (UnknownHostException ignored) {
+                // ниже сообщим о неверном адресе
+            }
+        }
+        throw new IllegalArgumentException("Field 'ip' must be an IPv4 or IPv6 address: " + ip);
+    }
+
+    private static byte[] parseIpv4(String ip) {
+        String[] parts = ip.split("\\.", -1);
+        if (parts.length != 4) {
+            return null;
+        }
+        byte[] bytes = new byte[4];
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            if (part.isEmpty() || part.length() > 3 || !part.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                return null;
+            }
+            int octet = Integer.parseInt(part);
+            if (octet > 255) {
+                return null;
+            }
+            bytes[i] = (byte) octet;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.practicum.ewm.stat.server.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Гранулярность предагрегированных таблиц просмотров, от крупной к мелкой.
+ * В часовых и суточных агрегатах кроме количества хитов хранится HyperLogLog-скетч ip
+ */
+@Getter
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public enum RollupBucket {
+    DAY("hits_day", ChronoUnit.DAYS, true),
+    HOUR("hits_hour", ChronoUnit.HOURS, true),
+    MINUTE("hits_minute", ChronoUnit.MINUTES, false);
+
+    String table;
+    ChronoUnit unit;
+    boolean sketched;
+
+    public LocalDateTime floor(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    public LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime floor = floor(time);
+        return floor.equals(time) ? time : floor.plus(1, unit);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.ewm.stat.server.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * Полуинтервал [from, to), который читается из агрегата bucket или из сырых хитов, если bucket == null
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TimeSegment {
+    RollupBucket bucket;
+    LocalDateTime from;
+    LocalDateTime to;
+
+    public boolean isRaw() {
+        return bucket == null;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.ewm.stat.server.repository;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Справочники, в которые вынесены повторяющиеся строки хитов
+ */
+@Getter
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public enum Dictionary {
+    APP("apps", "name"),
+    URI("uris", "uri");
+
+    String table;
+    String column;
+}
@@ -0,0 +1,22 @@
+package ru.practicum.ewm.stat.server.repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface DictionaryRepository {
+
+    /**
+     * Идентификаторы значений справочника, недостающие значения добавляются
+     */
+    Map<String, Integer> getOrCreateIds(Dictionary dictionary, Collection<String> values);
+
+    /**
+     * Идентификаторы существующих значений справочника, неизвестные значения пропускаются
+     */
+    Map<String, Integer> findIds(Dictionary dictionary, Collection<String> values);
+
+    /**
+     * Идентификаторы значений справочника, начинающихся с любого из переданных префиксов
+     */
+    Map<String, Integer> findIdsByPrefixes(Dictionary dictionary, Collection<String> prefixes);
+}
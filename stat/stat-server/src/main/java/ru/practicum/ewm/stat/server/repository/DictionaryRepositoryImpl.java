@@ -0,0 +1,146 @@
+package ru.practicum.ewm.stat.server.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Справочники с кэшем идентификаторов в памяти: идентификатор значения не меняется,
+ * поэтому после первого обращения строки справочника больше не читаются из базы.
+ * Значения приходят от клиентов, поэтому кэш ограничен cache-size записями на справочник,
+ * вытесненные идентификаторы снова читаются из базы
+ */
+@Repository
+public class DictionaryRepositoryImpl implements DictionaryRepository {
+    private static final String INSERT_POSTGRES = "INSERT INTO %1$s (%2$s) VALUES (?) ON CONFLICT (%2$s) DO NOTHING";
+    private static final String INSERT_STANDARD = "MERGE INTO %1$s d " +
+            "USING (VALUES (CAST(? AS VARCHAR(255)))) s (%2$s) " +
+            "ON d.%2$s = s.%2$s " +
+            "WHEN NOT MATCHED THEN INSERT (%2$s) VALUES (s.%2$s)";
+    private static final String SELECT_IDS = "SELECT id, %2$s FROM %1$s WHERE %2$s IN (:values)";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final String insert;
+    private final Map<Dictionary, Cache<String, Integer>> cache = new EnumMap<>(Dictionary.class);
+
+    public DictionaryRepositoryImpl(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                    @Value("${spring.datasource.url}") String datasourceUrl,
+                                    @Value("${stats.dictionary.cache-size:100000}") long cacheSize) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.insert = DatabaseDriver.fromJdbcUrl(datasourceUrl) == DatabaseDriver.POSTGRESQL
+                ? INSERT_POSTGRES
+                : INSERT_STANDARD;
+        for (Dictionary dictionary : Dictionary.values()) {
+            cache.put(dictionary, Caffeine.newBuilder().maximumSize(cacheSize).build());
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getOrCreateIds(Dictionary dictionary, Collection<String> values) {
+        Map<String, Integer> ids = findIds(dictionary, values);
+        // значения сортируются, чтобы параллельные транзакции блокировали новые строки в одном порядке
+        List<String> missing = values.stream()
+                .filter(value -> !ids.containsKey(value))
+                .distinct()
+                .sorted()
+                .toList();
+        if (missing.isEmpty()) {
+            return ids;
+        }
+        namedParameterJdbcTemplate.getJdbcTemplate().batchUpdate(
+                String.format(insert, dictionary.getTable(), dictionary.getColumn()), missing, missing.size(),
+                (ps, value) -> ps.setString(1, value));
+        ids.putAll(selectIds(dictionary, missing));
+        return ids;
+    }
+
+    @Override
+    public Map<String, Integer> findIdsByPrefixes(Dictionary dictionary, Collection<String> prefixes) {
+        if (prefixes.isEmpty()) {
+            return new HashMap<>();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringJoiner conditions = new StringJoiner(" OR ");
+        int i = 0;
+        for (String prefix : prefixes) {
+            params.addValue("prefix" + i, escapeLike(prefix) + "%");
+            conditions.add(dictionary.getColumn() + " LIKE :prefix" + i + " ESCAPE '\\'");
+            i++;
+        }
+        Map<String, Integer> ids = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT id, " + dictionary.getColumn() + " FROM " + dictionary.getTable() +
+                " WHERE " + conditions, params, rs -> {
+                    ids.put(rs.getString(2), rs.getInt(1));
+                });
+        addToCache(dictionary, ids);
+        return ids;
+    }
+
+    @Override
+    public Map<String, Integer> findIds(Dictionary dictionary, Collection<String> values) {
+        Cache<String, Integer> cached = cache.get(dictionary);
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String value : values) {
+            Integer id = cached.getIfPresent(value);
+            if (id != null) {
+                ids.put(value, id);
+            } else {
+                missing.add(value);
+            }
+        }
+        if (!missing.isEmpty()) {
+            ids.putAll(selectIds(dictionary, missing));
+        }
+        return ids;
+    }
+
+    private Map<String, Integer> selectIds(Dictionary dictionary, List<String> values) {
+        Map<String, Integer> ids = new HashMap<>();
+        namedParameterJdbcTemplate.query(String.format(SELECT_IDS, dictionary.getTable(), dictionary.getColumn()),
+                new MapSqlParameterSource("values", values),
+                rs -> {
+                    ids.put(rs.getString(2), rs.getInt(1));
+                });
+        addToCache(dictionary, ids);
+        return ids;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
+    /**
+     * Строки, добавленные в текущей транзакции, попадают в кэш только после коммита,
+     * иначе при откате в кэше остались бы несуществующие идентификаторы
+     */
+    private void addToCache(Dictionary dictionary, Map<String, Integer> ids) {
+        Cache<String, Integer> cached = cache.get(dictionary);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cached.putAll(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cached.putAll(ids);
+            }
+        });
+    }
+}
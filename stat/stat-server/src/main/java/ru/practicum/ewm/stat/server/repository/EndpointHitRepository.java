@@ -1,34 +1,68 @@
 package ru.practicum.ewm.stat.server.repository;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
 import ru.practicum.ewm.stat.server.model.EndpointHit;
 import ru.practicum.ewm.stat.server.model.ViewStats;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
-public interface EndpointHitRepository extends JpaRepository<EndpointHit, Integer> {
+/**
+ * Фильтр по uri задается точными значениями uris и префиксами uriPrefixes (null - без фильтра),
+ * учитываются uri, подходящие под любое из условий
+ */
+public interface EndpointHitRepository {
 
     /**
-     * Количество просмотров для переданных uri в (разрезе приложений)
+     * Пакетная вставка хитов с инкрементальным обновлением поминутных, почасовых и посуточных агрегатов
      */
-    @Query("select new ru.practicum.ewm.stat.server.model.ViewStats(eh.app, eh.uri, COUNT(eh.id)) " +
-            "from EndpointHit eh " +
-            "where eh.timestamp between :start and :end " +
-            "and (:uris is null or eh.uri in :uris) " +
-            "group by eh.app, eh.uri " +
-            "ORDER BY COUNT(eh.id) DESC")
-    List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris);
+    int insertAll(List<EndpointHit> endpointHits);
 
     /**
-     * Количество уникальных ip, с которых просматривали переданные uri (в разрезе приложений)
+     * Количество просмотров для переданных uri (в разрезе приложений): целые интервалы читаются из агрегатов,
+     * неполные края - из сырых хитов
      */
-    @Query("select new ru.practicum.ewm.stat.server.model.ViewStats(eh.app, eh.uri, COUNT(DISTINCT eh.ip)) " +
-            "from EndpointHit eh " +
-            "where eh.timestamp between :start and :end " +
-            "and (:uris is null or eh.uri in :uris) " +
-            "group by eh.app, eh.uri " +
-            "ORDER BY COUNT(DISTINCT eh.ip) DESC")
-    List<ViewStats> getUniqueStats(LocalDateTime start, LocalDateTime end, List<String> uris);
+    List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                             List<String> uriPrefixes);
+
+    /**
+     * То же, что getStats, но строки передаются consumer по мере чтения курсором
+     */
+    void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, List<String> uriPrefixes,
+                     Consumer<ViewStats> consumer);
+
+    /**
+     * Количество уникальных ip, с которых просматривали переданные uri (в разрезе приложений)
+     */
+    List<ViewStats> getUniqueStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                   List<String> uriPrefixes);
+
+    /**
+     * То же, что getUniqueStats, но строки передаются consumer по мере чтения курсором
+     */
+    void streamUniqueStats(LocalDateTime start, LocalDateTime end, List<String> uris, List<String> uriPrefixes,
+                           Consumer<ViewStats> consumer);
+
+    /**
+     * Оценка количества уникальных ip для переданных uri слиянием HyperLogLog-скетчей почасовых
+     * и посуточных агрегатов, неполные часы по краям добавляются из сырых хитов
+     */
+    List<ViewStats> getApproximateUniqueStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                              List<String> uriPrefixes);
+
+    /**
+     * Количество просмотров, у каждого uri интервал от своего начала до end
+     */
+    List<ViewStats> getStats(Map<String, LocalDateTime> uriStarts, LocalDateTime end);
+
+    /**
+     * Количество уникальных ip, у каждого uri интервал от своего начала до end
+     */
+    List<ViewStats> getUniqueStats(Map<String, LocalDateTime> uriStarts, LocalDateTime end);
+
+    /**
+     * Оценка количества уникальных ip по HyperLogLog-скетчам, у каждого uri интервал от своего начала до end
+     */
+    List<ViewStats> getApproximateUniqueStats(Map<String, LocalDateTime> uriStarts, LocalDateTime end);
 }
@@ -0,0 +1,446 @@
+package ru.practicum.ewm.stat.server.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ewm.stat.server.model.EndpointHit;
+import ru.practicum.ewm.stat.server.model.HyperLogLog;
+import ru.practicum.ewm.stat.server.model.IpAddress;
+import ru.practicum.ewm.stat.server.model.RollupBucket;
+import ru.practicum.ewm.stat.server.model.TimeSegment;
+import ru.practicum.ewm.stat.server.model.ViewStats;
+import ru.practicum.ewm.stat.server.service.TimeRangeSplitter;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Хиты хранятся в словарном представлении: app и uri заменены идентификаторами справочников,
+ * ip хранится в двоичном виде. Строки справочников подставляются только в итоговую статистику
+ */
+@Repository
+public class EndpointHitRepositoryImpl implements EndpointHitRepository {
+    private static final String RAW_TABLE = "hits";
+    private static final int URI_STARTS_CHUNK_SIZE = 500;
+    private static final String INSERT_HIT = "INSERT INTO hits (app_id, uri_id, ip, request_time) VALUES (?, ?, ?, ?)";
+    private static final String UPSERT_ROLLUP_POSTGRES = "INSERT INTO %1$s (app_id, uri_id, bucket, hits) " +
+            "VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (uri_id, bucket, app_id) DO UPDATE SET hits = %1$s.hits + EXCLUDED.hits";
+    private static final String UPSERT_ROLLUP_STANDARD = "MERGE INTO %1$s r " +
+            "USING (VALUES (CAST(? AS INTEGER), CAST(? AS INTEGER), CAST(? AS TIMESTAMP), CAST(? AS BIGINT))) " +
+            "s (app_id, uri_id, bucket, hits) " +
+            "ON r.uri_id = s.uri_id AND r.bucket = s.bucket AND r.app_id = s.app_id " +
+            "WHEN MATCHED THEN UPDATE SET hits = r.hits + s.hits " +
+            "WHEN NOT MATCHED THEN INSERT (app_id, uri_id, bucket, hits) VALUES (s.app_id, s.uri_id, s.bucket, s.hits)";
+    private static final String SELECT_SKETCHES = "SELECT app_id, uri_id, bucket, ip_sketch FROM %s " +
+            "WHERE uri_id IN (:uriIds) AND bucket IN (:buckets)";
+    private static final String UPDATE_SKETCH = "UPDATE %s SET ip_sketch = ? " +
+            "WHERE uri_id = ? AND bucket = ? AND app_id = ?";
+    private static final String WITH_NAMES = "SELECT a.name AS app, u.uri AS uri, s.%2$s " +
+            "FROM (%1$s) s " +
+            "JOIN apps a ON a.id = s.app_id " +
+            "JOIN uris u ON u.id = s.uri_id";
+    private static final Comparator<RollupKey> ROLLUP_LOCK_ORDER = Comparator.comparingInt(RollupKey::uriId)
+            .thenComparing(RollupKey::bucket)
+            .thenComparingInt(RollupKey::appId);
+    private static final RowMapper<ViewStats> VIEW_STATS_MAPPER = (rs, rowNum) ->
+            new ViewStats(rs.getString("app"), rs.getString("uri"), rs.getLong("total"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+    private final DictionaryRepository dictionaryRepository;
+    private final String upsertRollup;
+
+    @Value("${stats.ingest.jdbc-batch-size:500}")
+    private int batchSize;
+
+    public EndpointHitRepositoryImpl(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                     DictionaryRepository dictionaryRepository,
+                                     @Value("${spring.datasource.url}") String datasourceUrl,
+                                     @Value("${stats.query.fetch-size:1000}") int fetchSize) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.jdbcTemplate = namedParameterJdbcTemplate.getJdbcTemplate();
+        JdbcTemplate streamingTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streamingTemplate.setFetchSize(fetchSize);
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streamingTemplate);
+        this.dictionaryRepository = dictionaryRepository;
+        this.upsertRollup = DatabaseDriver.fromJdbcUrl(datasourceUrl) == DatabaseDriver.POSTGRESQL
+                ? UPSERT_ROLLUP_POSTGRES
+                : UPSERT_ROLLUP_STANDARD;
+    }
+
+    @Override
+    public int insertAll(List<EndpointHit> endpointHits) {
+        if (endpointHits.isEmpty()) {
+            return 0;
+        }
+        List<EncodedHit> encodedHits = encode(endpointHits);
+        jdbcTemplate.batchUpdate(INSERT_HIT, encodedHits, batchSize, (ps, hit) -> {
+            ps.setInt(1, hit.appId());
+            ps.setInt(2, hit.uriId());
+            ps.setBytes(3, hit.ip());
+            ps.setTimestamp(4, Timestamp.valueOf(hit.timestamp()));
+        });
+        addToRollups(encodedHits);
+        return endpointHits.size();
+    }
+
+    private List<EncodedHit> encode(List<EndpointHit> endpointHits) {
+        Map<String, Integer> appIds = dictionaryRepository.getOrCreateIds(Dictionary.APP,
+                endpointHits.stream().map(EndpointHit::getApp).collect(Collectors.toSet()));
+        Map<String, Integer> uriIds = dictionaryRepository.getOrCreateIds(Dictionary.URI,
+                endpointHits.stream().map(EndpointHit::getUri).collect(Collectors.toSet()));
+        return endpointHits.stream()
+                .map(endpointHit -> new EncodedHit(appIds.get(endpointHit.getApp()), uriIds.get(endpointHit.getUri()),
+                        IpAddress.toBytes(endpointHit.getIp()), endpointHit.getTimestamp()))
+                .toList();
+    }
+
+    private void addToRollups(List<EncodedHit> hits) {
+        for (RollupBucket bucket : RollupBucket.values()) {
+            // ключи сортируются, чтобы параллельные пачки блокировали строки агрегатов в одном порядке
+            List<Map.Entry<RollupKey, Long>> counts = hits.stream()
+                    .collect(Collectors.groupingBy(hit -> hit.rollupKey(bucket), Collectors.counting()))
+                    .entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey(ROLLUP_LOCK_ORDER))
+                    .toList();
+            jdbcTemplate.batchUpdate(String.format(upsertRollup, bucket.getTable()), counts, batchSize, (ps, count) -> {
+                ps.setInt(1, count.getKey().appId());
+                ps.setInt(2, count.getKey().uriId());
+                ps.setTimestamp(3, Timestamp.valueOf(count.getKey().bucket()));
+                ps.setLong(4, count.getValue());
+            });
+            if (bucket.isSketched()) {
+                addToSketches(bucket, hits);
+            }
+        }
+    }
+
+    /**
+     * Строки агрегатов к этому моменту уже заблокированы upsert-ом счетчиков в той же транзакции,
+     * поэтому чтение, слияние и запись скетча не теряют параллельные обновления
+     */
+    private void addToSketches(RollupBucket bucket, List<EncodedHit> hits) {
+        Map<RollupKey, List<byte[]>> ips = hits.stream()
+                .collect(Collectors.groupingBy(hit -> hit.rollupKey(bucket),
+                        Collectors.mapping(EncodedHit::ip, Collectors.toList())));
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("uriIds", ips.keySet().stream().map(RollupKey::uriId).distinct().toList())
+                .addValue("buckets", ips.keySet().stream().map(RollupKey::bucket).distinct().toList());
+        Map<RollupKey, HyperLogLog> sketches = new HashMap<>();
+        namedParameterJdbcTemplate.query(String.format(SELECT_SKETCHES, bucket.getTable()), params, rs -> {
+            RollupKey key = new RollupKey(rs.getInt("app_id"), rs.getInt("uri_id"),
+                    rs.getTimestamp("bucket").toLocalDateTime());
+            if (ips.containsKey(key)) {
+                sketches.put(key, HyperLogLog.fromBytes(rs.getBytes("ip_sketch")));
+            }
+        });
+        List<Map.Entry<RollupKey, byte[]>> updates = ips.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(ROLLUP_LOCK_ORDER))
+                .map(entry -> {
+                    HyperLogLog sketch = sketches.getOrDefault(entry.getKey(), new HyperLogLog());
+                    entry.getValue().forEach(sketch::add);
+                    return Map.entry(entry.getKey(), sketch.toBytes());
+                })
+                .toList();
+        jdbcTemplate.batchUpdate(String.format(UPDATE_SKETCH, bucket.getTable()), updates, batchSize, (ps, update) -> {
+            ps.setBytes(1, update.getValue());
+            ps.setInt(2, update.getKey().uriId());
+            ps.setTimestamp(3, Timestamp.valueOf(update.getKey().bucket()));
+            ps.setInt(4, update.getKey().appId());
+        });
+    }
+
+    @Override
+    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                    List<String> uriPrefixes) {
+        StatsQuery query = statsQuery(start, end, uris, uriPrefixes);
+        return query == null ? List.of() : namedParameterJdbcTemplate.query(query.sql(), query.params(),
+                VIEW_STATS_MAPPER);
+    }
+
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, List<String> uriPrefixes,
+                            Consumer<ViewStats> consumer) {
+        stream(statsQuery(start, end, uris, uriPrefixes), consumer);
+    }
+
+    @Override
+    public List<ViewStats> getUniqueStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                          List<String> uriPrefixes) {
+        StatsQuery query = uniqueStatsQuery(start, end, uris, uriPrefixes);
+        return query == null ? List.of() : namedParameterJdbcTemplate.query(query.sql(), query.params(),
+                VIEW_STATS_MAPPER);
+    }
+
+    @Override
+    public void streamUniqueStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                  List<String> uriPrefixes, Consumer<ViewStats> consumer) {
+        stream(uniqueStatsQuery(start, end, uris, uriPrefixes), consumer);
+    }
+
+    /**
+     * Строки читаются курсором порциями по fetch-size и передаются consumer по одной, не накапливаясь в памяти.
+     * Для PostgreSQL курсор работает только внутри транзакции
+     */
+    private void stream(StatsQuery query, Consumer<ViewStats> consumer) {
+        if (query == null) {
+            return;
+        }
+        streamingJdbcTemplate.query(query.sql(), query.params(), (RowCallbackHandler) rs ->
+                consumer.accept(VIEW_STATS_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * @return null, если под фильтр не попал ни один uri
+     */
+    private StatsQuery statsQuery(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                  List<String> uriPrefixes) {
+        List<Integer> uriIds = findUriIds(uris, uriPrefixes);
+        if (uriIds != null && uriIds.isEmpty()) {
+            return null;
+        }
+        String uriFilter = uriIds == null ? "" : " AND uri_id IN (:uriIds)";
+        MapSqlParameterSource params = new MapSqlParameterSource("uriIds", uriIds);
+        StringJoiner segmentQueries = new StringJoiner(" UNION ALL ");
+        // end входит в интервал, а хиты хранятся с точностью до микросекунды
+        List<TimeSegment> segments = TimeRangeSplitter.split(start, end.plus(1, ChronoUnit.MICROS));
+        for (int i = 0; i < segments.size(); i++) {
+            TimeSegment segment = segments.get(i);
+            params.addValue("from" + i, segment.getFrom());
+            params.addValue("to" + i, segment.getTo());
+            if (segment.isRaw()) {
+                segmentQueries.add("SELECT app_id, uri_id, COUNT(*) AS hits FROM hits " +
+                        "WHERE request_time >= :from" + i + " AND request_time < :to" + i + uriFilter +
+                        " GROUP BY app_id, uri_id");
+            } else {
+                segmentQueries.add("SELECT app_id, uri_id, hits FROM " + segment.getBucket().getTable() +
+                        " WHERE bucket >= :from" + i + " AND bucket < :to" + i + uriFilter);
+            }
+        }
+        String totals = "SELECT app_id, uri_id, SUM(hits) AS total FROM (" + segmentQueries + ") t " +
+                "GROUP BY app_id, uri_id";
+        return new StatsQuery(String.format(WITH_NAMES, totals, "total") + " ORDER BY s.total DESC", params);
+    }
+
+    private StatsQuery uniqueStatsQuery(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                        List<String> uriPrefixes) {
+        List<Integer> uriIds = findUriIds(uris, uriPrefixes);
+        if (uriIds != null && uriIds.isEmpty()) {
+            return null;
+        }
+        String totals = "SELECT app_id, uri_id, COUNT(DISTINCT ip) AS total FROM hits " +
+                "WHERE request_time BETWEEN :start AND :end" + (uriIds == null ? "" : " AND uri_id IN (:uriIds)") +
+                " GROUP BY app_id, uri_id";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", start)
+                .addValue("end", end)
+                .addValue("uriIds", uriIds);
+        return new StatsQuery(String.format(WITH_NAMES, totals, "total") + " ORDER BY s.total DESC", params);
+    }
+
+    @Override
+    public List<ViewStats> getApproximateUniqueStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                     List<String> uriPrefixes) {
+        List<Integer> uriIds = findUriIds(uris, uriPrefixes);
+        if (uriIds != null && uriIds.isEmpty()) {
+            return List.of();
+        }
+        String uriFilter = uriIds == null ? "" : " AND uri_id IN (:uriIds)";
+        MapSqlParameterSource params = new MapSqlParameterSource("uriIds", uriIds);
+        StringJoiner segmentQueries = new StringJoiner(" UNION ALL ");
+        // скетчи есть только у часов и суток, края короче часа дают точные ip из сырых хитов
+        List<TimeSegment> segments = TimeRangeSplitter.split(start, end.plus(1, ChronoUnit.MICROS),
+                RollupBucket.DAY, RollupBucket.HOUR);
+        for (int i = 0; i < segments.size(); i++) {
+            TimeSegment segment = segments.get(i);
+            params.addValue("from" + i, segment.getFrom());
+            params.addValue("to" + i, segment.getTo());
+            if (segment.isRaw()) {
+                segmentQueries.add("SELECT DISTINCT app_id, uri_id, CAST(NULL AS BYTEA) AS ip_sketch, ip FROM hits " +
+                        "WHERE request_time >= :from" + i + " AND request_time < :to" + i + uriFilter);
+            } else {
+                segmentQueries.add("SELECT app_id, uri_id, ip_sketch, CAST(NULL AS BYTEA) AS ip FROM " +
+                        segment.getBucket().getTable() +
+                        " WHERE bucket >= :from" + i + " AND bucket < :to" + i + uriFilter);
+            }
+        }
+        return estimateUnique(String.format(WITH_NAMES, segmentQueries, "ip_sketch, s.ip"), params);
+    }
+
+    /**
+     * Сливает скетчи и точные ip из строк (app, uri, ip_sketch, ip) в оценку по каждой паре app и uri
+     */
+    private List<ViewStats> estimateUnique(String sql, MapSqlParameterSource params) {
+        Map<Map.Entry<String, String>, HyperLogLog> sketches = new HashMap<>();
+        namedParameterJdbcTemplate.query(sql, params, rs -> {
+            HyperLogLog sketch = sketches.computeIfAbsent(Map.entry(rs.getString("app"), rs.getString("uri")),
+                    key -> new HyperLogLog());
+            byte[] sketchBytes = rs.getBytes("ip_sketch");
+            if (sketchBytes != null) {
+                sketch.merge(HyperLogLog.fromBytes(sketchBytes));
+            }
+            byte[] ip = rs.getBytes("ip");
+            if (ip != null) {
+                sketch.add(ip);
+            }
+        });
+        return sketches.entrySet().stream()
+                .map(entry -> new ViewStats(entry.getKey().getKey(), entry.getKey().getValue(), entry.getValue().estimate()))
+                .sorted(Comparator.comparing(ViewStats::getHits).reversed())
+                .toList();
+    }
+
+    @Override
+    public List<ViewStats> getStats(Map<String, LocalDateTime> uriStarts, LocalDateTime end) {
+        return queryInChunks(uriStarts, starts -> {
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            StringJoiner segmentQueries = new StringJoiner(" UNION ALL ");
+            splitRanges(starts, end, RollupBucket.values()).forEach((table, ranges) -> {
+                String joined = joinRanges(table, ranges, params);
+                segmentQueries.add(RAW_TABLE.equals(table)
+                        ? "SELECT t.app_id, t.uri_id, COUNT(*) AS hits FROM " + joined + " GROUP BY t.app_id, t.uri_id"
+                        : "SELECT t.app_id, t.uri_id, t.hits FROM " + joined);
+            });
+            String totals = "SELECT app_id, uri_id, SUM(hits) AS total FROM (" + segmentQueries + ") t " +
+                    "GROUP BY app_id, uri_id";
+            return namedParameterJdbcTemplate.query(String.format(WITH_NAMES, totals, "total"), params,
+                    VIEW_STATS_MAPPER);
+        });
+    }
+
+    @Override
+    public List<ViewStats> getUniqueStats(Map<String, LocalDateTime> uriStarts, LocalDateTime end) {
+        return queryInChunks(uriStarts, starts -> {
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            List<UriRange> ranges = starts.entrySet().stream()
+                    .map(entry -> new UriRange(entry.getKey(), entry.getValue(), end.plus(1, ChronoUnit.MICROS)))
+                    .toList();
+            String totals = "SELECT t.app_id, t.uri_id, COUNT(DISTINCT t.ip) AS total FROM " +
+                    joinRanges(RAW_TABLE, ranges, params) + " GROUP BY t.app_id, t.uri_id";
+            return namedParameterJdbcTemplate.query(String.format(WITH_NAMES, totals, "total"), params,
+                    VIEW_STATS_MAPPER);
+        });
+    }
+
+    @Override
+    public List<ViewStats> getApproximateUniqueStats(Map<String, LocalDateTime> uriStarts, LocalDateTime end) {
+        return queryInChunks(uriStarts, starts -> {
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            StringJoiner segmentQueries = new StringJoiner(" UNION ALL ");
+            splitRanges(starts, end, RollupBucket.DAY, RollupBucket.HOUR).forEach((table, ranges) -> {
+                String joined = joinRanges(table, ranges, params);
+                segmentQueries.add(RAW_TABLE.equals(table)
+                        ? "SELECT DISTINCT t.app_id, t.uri_id, CAST(NULL AS BYTEA) AS ip_sketch, t.ip FROM " + joined
+                        : "SELECT t.app_id, t.uri_id, t.ip_sketch, CAST(NULL AS BYTEA) AS ip FROM " + joined);
+            });
+            return estimateUnique(String.format(WITH_NAMES, segmentQueries, "ip_sketch, s.ip"), params);
+        });
+    }
+
+    /**
+     * Длинные списки uri делятся на части, чтобы не упираться в ограничение на число параметров запроса
+     */
+    private List<ViewStats> queryInChunks(Map<String, LocalDateTime> uriStarts,
+                                          Function<Map<Integer, LocalDateTime>, List<ViewStats>> query) {
+        Map<String, Integer> uriIds = dictionaryRepository.findIds(Dictionary.URI, uriStarts.keySet());
+        List<Map.Entry<Integer, LocalDateTime>> starts = uriIds.entrySet().stream()
+                .map(entry -> Map.entry(entry.getValue(), uriStarts.get(entry.getKey())))
+                .toList();
+        List<ViewStats> result = new ArrayList<>();
+        for (int from = 0; from < starts.size(); from += URI_STARTS_CHUNK_SIZE) {
+            result.addAll(query.apply(starts.subList(from, Math.min(from + URI_STARTS_CHUNK_SIZE, starts.size()))
+                    .stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))));
+        }
+        result.sort(Comparator.comparing(ViewStats::getHits).reversed());
+        return result;
+    }
+
+    /**
+     * Интервалы uri, разбитые на сегменты, сгруппированные по таблицам, из которых они читаются
+     */
+    private Map<String, List<UriRange>> splitRanges(Map<Integer, LocalDateTime> starts, LocalDateTime end,
+                                                    RollupBucket... buckets) {
+        Map<String, List<UriRange>> ranges = new LinkedHashMap<>();
+        starts.forEach((uriId, start) -> {
+            for (TimeSegment segment : TimeRangeSplitter.split(start, end.plus(1, ChronoUnit.MICROS), buckets)) {
+                String table = segment.isRaw() ? RAW_TABLE : segment.getBucket().getTable();
+                ranges.computeIfAbsent(table, key -> new ArrayList<>())
+                        .add(new UriRange(uriId, segment.getFrom(), segment.getTo()));
+            }
+        });
+        return ranges;
+    }
+
+    /**
+     * Таблица t, соединенная со списком (uri_id, from, to): каждая строка таблицы попадает в выборку,
+     * только если ее время лежит в интервале своего uri
+     */
+    private String joinRanges(String table, List<UriRange> ranges, MapSqlParameterSource params) {
+        String timeColumn = RAW_TABLE.equals(table) ? "request_time" : "bucket";
+        String prefix = "r" + params.getParameterNames().length + "_";
+        StringJoiner values = new StringJoiner(", ");
+        for (int i = 0; i < ranges.size(); i++) {
+            UriRange range = ranges.get(i);
+            params.addValue(prefix + i + "u", range.uriId())
+                    .addValue(prefix + i + "f", range.from())
+                    .addValue(prefix + i + "t", range.to());
+            values.add("(CAST(:" + prefix + i + "u AS INTEGER), CAST(:" + prefix + i + "f AS TIMESTAMP), " +
+                    "CAST(:" + prefix + i + "t AS TIMESTAMP))");
+        }
+        return table + " t JOIN (VALUES " + values + ") q (uri_id, from_time, to_time) " +
+                "ON t.uri_id = q.uri_id AND t." + timeColumn + " >= q.from_time AND t." + timeColumn + " < q.to_time";
+    }
+
+    /**
+     * @return null, если фильтра по uri нет
+     */
+    private List<Integer> findUriIds(List<String> uris, List<String> uriPrefixes) {
+        if (uris == null && uriPrefixes == null) {
+            return null;
+        }
+        Set<Integer> uriIds = new HashSet<>();
+        if (uris != null) {
+            uriIds.addAll(dictionaryRepository.findIds(Dictionary.URI, uris).values());
+        }
+        if (uriPrefixes != null) {
+            uriIds.addAll(dictionaryRepository.findIdsByPrefixes(Dictionary.URI, uriPrefixes).values());
+        }
+        return List.copyOf(uriIds);
+    }
+
+    private record EncodedHit(int appId, int uriId, byte[] ip, LocalDateTime timestamp) {
+        RollupKey rollupKey(RollupBucket bucket) {
+            return new RollupKey(appId, uriId, bucket.floor(timestamp));
+        }
+    }
+
+    private record UriRange(int uriId, LocalDateTime from, LocalDateTime to) {
+    }
+
+    private record RollupKey(int appId, int uriId, LocalDateTime bucket) {
+    }
+
+    private record StatsQuery(String sql, MapSqlParameterSource params) {
+    }
+}
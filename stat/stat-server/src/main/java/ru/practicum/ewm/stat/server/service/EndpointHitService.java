@@ -5,9 +5,40 @@ import ru.practicum.ewm.stat.server.model.ViewStats;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface EndpointHitService {
     EndpointHit create(EndpointHit endpointHit);
 
-    List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
+    int createAll(List<EndpointHit> endpointHits);
+
+    /**
+     * @param exact для unique: точный подсчет по сырым хитам вместо оценки HyperLogLog (ошибка ~1.6%),
+     *              null - значение по умолчанию из stats.unique.exact-by-default
+     * @return строки статистики в порядке убывания количества
+     */
+    List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, List<String> uriPrefixes,
+                             boolean unique, Boolean exact);
+
+    /**
+     * @param uriPrefixes дополнительно к uris учитываются uri, начинающиеся с этих префиксов
+     * @param exact       для unique: точный подсчет по сырым хитам вместо оценки HyperLogLog (ошибка ~1.6%),
+     *                    null - значение по умолчанию из stats.unique.exact-by-default
+     * @param consumer    получает строки статистики по мере чтения из базы, в порядке убывания количества
+     */
+    void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, List<String> uriPrefixes,
+                     boolean unique, Boolean exact, Consumer<ViewStats> consumer);
+
+    /**
+     * Количество просмотров по uri, просуммированное по приложениям
+     */
+    Map<String, Long> getHitsByUri(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                   List<String> uriPrefixes, boolean unique, Boolean exact);
+
+    /**
+     * Количество просмотров по uri, у каждого uri интервал считается от своего начала до end
+     */
+    Map<String, Long> getHitsByUriStarts(Map<String, LocalDateTime> uriStarts, LocalDateTime end, boolean unique,
+                                         Boolean exact);
 }
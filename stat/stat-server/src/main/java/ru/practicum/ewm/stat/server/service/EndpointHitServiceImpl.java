@@ -1,32 +1,108 @@
 package ru.practicum.ewm.stat.server.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.stat.server.model.EndpointHit;
 import ru.practicum.ewm.stat.server.model.ViewStats;
 import ru.practicum.ewm.stat.server.repository.EndpointHitRepository;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class EndpointHitServiceImpl implements EndpointHitService {
     private final EndpointHitRepository statRepository;
+    private final HitWriter hitWriter;
+
+    @Value("${stats.unique.exact-by-default:false}")
+    private boolean exactUniqueByDefault;
 
     @Override
     public EndpointHit create(EndpointHit endpointHit) {
-        return statRepository.save(endpointHit);
+        hitWriter.write(endpointHit);
+        return endpointHit;
+    }
+
+    @Override
+    @Transactional
+    public int createAll(List<EndpointHit> endpointHits) {
+        return statRepository.insertAll(endpointHits);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                    List<String> uriPrefixes, boolean unique, Boolean exact) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("end must be greater than start");
+        }
+        return findStats(start, end, uris, uriPrefixes, unique, exact);
     }
 
+    /**
+     * Оценка HyperLogLog собирается в памяти по парам app и uri и только затем передается consumer
+     */
     @Override
-    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+    @Transactional(readOnly = true)
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, List<String> uriPrefixes,
+                            boolean unique, Boolean exact, Consumer<ViewStats> consumer) {
         if (!end.isAfter(start)) {
             throw new IllegalArgumentException("end must be greater than start");
         }
+        if (!unique) {
+            statRepository.streamStats(start, end, uris, uriPrefixes, consumer);
+        } else if (exact == null ? exactUniqueByDefault : exact) {
+            statRepository.streamUniqueStats(start, end, uris, uriPrefixes, consumer);
+        } else {
+            statRepository.getApproximateUniqueStats(start, end, uris, uriPrefixes).forEach(consumer);
+        }
+    }
+
+    /**
+     * Время в теле запроса передается с точностью до секунды, поэтому здесь допускается end, равный start
+     */
+    @Override
+    public Map<String, Long> getHitsByUri(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                          List<String> uriPrefixes, boolean unique, Boolean exact) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("end must not be before start");
+        }
+        return findStats(start, end, uris, uriPrefixes, unique, exact).stream()
+                .collect(Collectors.toMap(ViewStats::getUri, ViewStats::getHits, Long::sum, LinkedHashMap::new));
+    }
+
+    @Override
+    public Map<String, Long> getHitsByUriStarts(Map<String, LocalDateTime> uriStarts, LocalDateTime end,
+                                                boolean unique, Boolean exact) {
+        if (uriStarts.values().stream().anyMatch(end::isBefore)) {
+            throw new IllegalArgumentException("end must not be before start");
+        }
+        List<ViewStats> stats;
+        if (unique) {
+            stats = (exact == null ? exactUniqueByDefault : exact)
+                    ? statRepository.getUniqueStats(uriStarts, end)
+                    : statRepository.getApproximateUniqueStats(uriStarts, end);
+        } else {
+            stats = statRepository.getStats(uriStarts, end);
+        }
+        return stats.stream()
+                .collect(Collectors.toMap(ViewStats::getUri, ViewStats::getHits, Long::sum, LinkedHashMap::new));
+    }
+
+    private List<ViewStats> findStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                      List<String> uriPrefixes, boolean unique, Boolean exact) {
         if (unique) {
-            return statRepository.getUniqueStats(start, end, uris);
+            return (exact == null ? exactUniqueByDefault : exact)
+                    ? statRepository.getUniqueStats(start, end, uris, uriPrefixes)
+                    : statRepository.getApproximateUniqueStats(start, end, uris, uriPrefixes);
         }
-        return statRepository.getStats(start, end, uris);
+        return statRepository.getStats(start, end, uris, uriPrefixes);
     }
 }
@@ -0,0 +1,140 @@
+package ru.practicum.ewm.stat.server.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.stat.server.model.RollupBucket;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Обслуживание хранения хитов в PostgreSQL: заранее создает помесячные секции таблицы hits на ближайшие месяцы,
+ * удаляет целиком секции старше срока хранения вместо DELETE по строкам и чистит агрегаты старше их сроков.
+ * <p>
+ * После удаления сырых секций за период точные уникальные ip (exact=true) и неполные края интервалов,
+ * которые читаются из сырых хитов, за этот период считаются нулем; целые минуты, часы и сутки
+ * продолжают учитываться, пока не истек срок хранения их агрегатов
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stats.partitions.enabled", havingValue = "true")
+public class HitPartitionService {
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'hits_y'yyyy'm'MM");
+    private static final String SELECT_PARTITIONS = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'hits' AND c.relname LIKE 'hits\\_y%'";
+    private static final String CREATE_PARTITION = "CREATE TABLE IF NOT EXISTS %s PARTITION OF hits " +
+            "FOR VALUES FROM ('%s') TO ('%s')";
+    private static final String CREATE_DETACHED = "CREATE TABLE %s (LIKE hits INCLUDING DEFAULTS INCLUDING CONSTRAINTS)";
+    private static final String MOVE_FROM_DEFAULT = "WITH moved AS (DELETE FROM hits_default " +
+            "WHERE request_time >= '%2$s' AND request_time < '%3$s' RETURNING *) " +
+            "INSERT INTO %1$s SELECT * FROM moved";
+    private static final String ATTACH_PARTITION = "ALTER TABLE hits ATTACH PARTITION %s " +
+            "FOR VALUES FROM ('%s') TO ('%s')";
+    private static final String DELETE_ROLLUPS = "DELETE FROM %s WHERE bucket < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Map<RollupBucket, Integer> rollupRetentionMonths = new EnumMap<>(RollupBucket.class);
+
+    public HitPartitionService(JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${stats.partitions.months-ahead:2}") int monthsAhead,
+                               @Value("${stats.partitions.retention-months:0}") int retentionMonths,
+                               @Value("${stats.partitions.minute-retention-months:0}") int minuteRetentionMonths,
+                               @Value("${stats.partitions.hour-retention-months:0}") int hourRetentionMonths,
+                               @Value("${stats.partitions.day-retention-months:0}") int dayRetentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        rollupRetentionMonths.put(RollupBucket.MINUTE, minuteRetentionMonths);
+        rollupRetentionMonths.put(RollupBucket.HOUR, hourRetentionMonths);
+        rollupRetentionMonths.put(RollupBucket.DAY, dayRetentionMonths);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${stats.partitions.cron:0 0 3 * * *}")
+    public void maintain() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(current.plusMonths(i));
+        }
+        if (retentionMonths > 0) {
+            dropPartitionsBefore(current.minusMonths(retentionMonths));
+        }
+        rollupRetentionMonths.forEach((bucket, months) -> {
+            if (months > 0) {
+                deleteRollupsBefore(bucket, current.minusMonths(months));
+            }
+        });
+    }
+
+    /**
+     * Если хиты за месяц уже попали в секцию по умолчанию, секция создается отдельно, хиты переносятся в нее
+     * и она присоединяется к hits в одной транзакции. Если не удалось и это, обслуживание прерывается с ошибкой,
+     * чтобы хиты не копились в секции по умолчанию незаметно
+     */
+    private void createPartition(YearMonth month) {
+        String name = PARTITION_NAME.format(month.atDay(1));
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        try {
+            jdbcTemplate.execute(String.format(CREATE_PARTITION, name, from, to));
+            return;
+        } catch (DataAccessException e) {
+            log.warn("Failed to create partition {}, moving its hits out of the default partition: {}",
+                    name, e.getMessage());
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute(String.format(CREATE_DETACHED, name));
+                jdbcTemplate.execute(String.format(MOVE_FROM_DEFAULT, name, from, to));
+                jdbcTemplate.execute(String.format(ATTACH_PARTITION, name, from, to));
+            });
+            log.info("Created partition {} from hits in the default partition", name);
+        } catch (DataAccessException e) {
+            throw new IllegalStateException("Failed to create partition " + name, e);
+        }
+    }
+
+    /**
+     * Удаляет секции, все хиты которых старше первого дня переданного месяца. Агрегаты чистятся отдельно
+     * по своим срокам хранения
+     */
+    private void dropPartitionsBefore(YearMonth oldestKept) {
+        LocalDate keepFrom = oldestKept.atDay(1);
+        List<String> partitions = jdbcTemplate.queryForList(SELECT_PARTITIONS, String.class);
+        for (String name : partitions) {
+            LocalDate month = YearMonth.parse(name, PARTITION_NAME).atDay(1);
+            if (month.isBefore(keepFrom)) {
+                jdbcTemplate.execute("DROP TABLE " + name);
+                log.info("Dropped partition {}", name);
+            }
+        }
+    }
+
+    private void deleteRollupsBefore(RollupBucket bucket, YearMonth oldestKept) {
+        int deleted = jdbcTemplate.update(String.format(DELETE_ROLLUPS, bucket.getTable()),
+                Timestamp.valueOf(oldestKept.atDay(1).atStartOfDay()));
+        if (deleted > 0) {
+            log.info("Deleted {} rows from {} before {}", deleted, bucket.getTable(), oldestKept);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package ru.practicum.ewm.stat.server.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.stat.server.exception.ServiceUnavailableException;
+import ru.practicum.ewm.stat.server.model.EndpointHit;
+import ru.practicum.ewm.stat.server.model.IpAddress;
+import ru.practicum.ewm.stat.server.repository.EndpointHitRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Запись одиночных хитов. В режиме отложенной записи (write-behind) хит считается принятым, как только
+ * попал в кольцевой буфер, а отдельный поток пишет буфер в базу пачками. Хиты, не успевшие попасть в базу,
+ * теряются при аварийной остановке сервиса; при штатной остановке буфер дописывается
+ */
+@Slf4j
+@Component
+public class HitWriter {
+    private final EndpointHitRepository statRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean writeBehind;
+    private final RingBuffer<EndpointHit> buffer;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final long shutdownTimeoutMs;
+    private final WriteBehindOverflowPolicy overflowPolicy;
+    private final Timer flushTimer;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile int pending;
+    private volatile boolean idle;
+
+    public HitWriter(EndpointHitRepository statRepository,
+                     TransactionTemplate transactionTemplate,
+                     MeterRegistry meterRegistry,
+                     @Value("${stats.ingest.write-behind.enabled:false}") boolean writeBehind,
+                     @Value("${stats.ingest.write-behind.capacity:65536}") int capacity,
+                     @Value("${stats.ingest.write-behind.batch-size:500}") int batchSize,
+                     @Value("${stats.ingest.write-behind.max-delay-ms:50}") long maxDelayMs,
+                     @Value("${stats.ingest.write-behind.shutdown-timeout-ms:10000}") long shutdownTimeoutMs,
+                     @Value("${stats.ingest.write-behind.overflow-policy:SYNC}")
+                     WriteBehindOverflowPolicy overflowPolicy) {
+        if (batchSize <= 0 || maxDelayMs <= 0) {
+            throw new IllegalArgumentException("Write-behind batch size and delay must be positive");
+        }
+        this.statRepository = statRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.writeBehind = writeBehind;
+        this.buffer = new RingBuffer<>(capacity);
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.overflowPolicy = overflowPolicy;
+        Gauge.builder("stats.ingest.buffer.depth", this, writer -> writer.buffer.size() + writer.pending)
+                .description("Hits accepted but not yet written to the database")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("stats.ingest.flush")
+                .description("Time to write one batch of buffered hits")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("stats.ingest.buffer.rejected").register(meterRegistry);
+        this.failedCounter = Counter.builder("stats.ingest.flush.failed").register(meterRegistry);
+        this.writer = new Thread(this::writeLoop, "stat-hit-writer");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (writeBehind) {
+            writer.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!writeBehind) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(shutdownTimeoutMs);
+        if (!buffer.isEmpty()) {
+            log.warn("{} buffered hits were not written before shutdown", buffer.size());
+        }
+    }
+
+    public void write(EndpointHit endpointHit) {
+        // неверный ip отклоняется сразу: при отложенной записи ошибка пришлась бы на всю пачку
+        IpAddress.toBytes(endpointHit.getIp());
+        if (!writeBehind) {
+            writeNow(List.of(endpointHit));
+            return;
+        }
+        if (running && buffer.offer(endpointHit)) {
+            if (idle || buffer.size() >= batchSize) {
+                LockSupport.unpark(writer);
+            }
+            return;
+        }
+        if (overflowPolicy == WriteBehindOverflowPolicy.REJECT) {
+            rejectedCounter.increment();
+            throw new ServiceUnavailableException("Hit buffer is full");
+        }
+        writeNow(List.of(endpointHit));
+    }
+
+    private void writeNow(List<EndpointHit> endpointHits) {
+        transactionTemplate.executeWithoutResult(status -> statRepository.insertAll(endpointHits));
+    }
+
+    /**
+     * Пачка пишется, когда набралось batchSize хитов или с момента первого хита прошло max-delay-ms.
+     * Вместе с набираемой пачкой в памяти находится не больше capacity + batch-size хитов.
+     * Пустой писатель спит, пока его не разбудит первый хит: флаг idle выставляется до повторной проверки буфера,
+     * поэтому хит, добавленный между проверкой и park, либо виден писателю, либо будит его
+     */
+    private void writeLoop() {
+        List<EndpointHit> batch = new ArrayList<>(batchSize);
+        long firstAt = 0;
+        while (running || !buffer.isEmpty() || !batch.isEmpty()) {
+            boolean wasEmpty = batch.isEmpty();
+            buffer.drainTo(batch, batchSize - batch.size());
+            pending = batch.size();
+            if (wasEmpty && !batch.isEmpty()) {
+                firstAt = System.nanoTime();
+            }
+            long waited = System.nanoTime() - firstAt;
+            if (!batch.isEmpty() && (batch.size() >= batchSize || waited >= maxDelayNanos || !running)) {
+                flush(batch);
+                batch.clear();
+                pending = 0;
+            } else if (!batch.isEmpty()) {
+                LockSupport.parkNanos(maxDelayNanos - waited);
+            } else if (running) {
+                idle = true;
+                if (buffer.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+            }
+        }
+    }
+
+    /**
+     * Если пачка не записалась, хиты пишутся по одному, чтобы из-за одной строки не терялась вся пачка
+     */
+    private void flush(List<EndpointHit> batch) {
+        try {
+            flushTimer.record(() -> writeNow(List.copyOf(batch)));
+        } catch (RuntimeException e) {
+            log.warn("Failed to write {} buffered hits, writing them one by one: {}", batch.size(), e.getMessage());
+            for (EndpointHit endpointHit : batch) {
+                try {
+                    writeNow(List.of(endpointHit));
+                } catch (RuntimeException hitException) {
+                    failedCounter.increment();
+                    log.warn("Failed to write buffered hit {}: {}", endpointHit, hitException.getMessage());
+                }
+            }
+        }
+    }
+}
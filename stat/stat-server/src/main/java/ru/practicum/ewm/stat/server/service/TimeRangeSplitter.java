@@ -0,0 +1,51 @@
+package ru.practicum.ewm.stat.server.service;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.practicum.ewm.stat.server.model.RollupBucket;
+import ru.practicum.ewm.stat.server.model.TimeSegment;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбивает интервал на целые дни, часы и минуты (или только на переданные гранулярности), которые читаются
+ * из агрегатов, и неполные края, которые читаются из сырых хитов. Сегментов получается не больше семи
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class TimeRangeSplitter {
+    public static List<TimeSegment> split(LocalDateTime start, LocalDateTime endExclusive) {
+        return split(start, endExclusive, RollupBucket.values());
+    }
+
+    /**
+     * @param buckets гранулярности от крупной к мелкой
+     */
+    public static List<TimeSegment> split(LocalDateTime start, LocalDateTime endExclusive, RollupBucket... buckets) {
+        List<TimeSegment> segments = new ArrayList<>();
+        split(start, endExclusive, buckets, 0, segments);
+        return segments;
+    }
+
+    private static void split(LocalDateTime from, LocalDateTime to, RollupBucket[] buckets, int level,
+                              List<TimeSegment> segments) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (level == buckets.length) {
+            segments.add(new TimeSegment(null, from, to));
+            return;
+        }
+        RollupBucket bucket = buckets[level];
+        LocalDateTime wholeFrom = bucket.ceil(from);
+        LocalDateTime wholeTo = bucket.floor(to);
+        if (!wholeFrom.isBefore(wholeTo)) {
+            split(from, to, buckets, level + 1, segments);
+            return;
+        }
+        split(from, wholeFrom, buckets, level + 1, segments);
+        segments.add(new TimeSegment(bucket, wholeFrom, wholeTo));
+        split(wholeTo, to, buckets, level + 1, segments);
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.ewm.stat.server.service;
+
+/**
+ * Поведение при заполненном буфере отложенной записи хитов
+ */
+public enum WriteBehindOverflowPolicy {
+    /**
+     * Записать хит синхронно в потоке запроса
+     */
+    SYNC,
+    /**
+     * Отклонить хит с ответом 503
+     */
+    REJECT
+}
@@ -1,10 +1,9 @@
-DROP TABLE IF EXISTS hits CASCADE;
-
-CREATE TABLE hits
+-- схема до перехода на Flyway: в уже существующей базе таблица есть, и миграция ничего не меняет
+CREATE TABLE IF NOT EXISTS hits
 (
     id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     app          VARCHAR(80)  NOT NULL,
     uri          VARCHAR(255) NOT NULL,
     ip           VARCHAR(45) NOT NULL,
     request_time TIMESTAMP WITHOUT TIME ZONE
-);
\ No newline at end of file
+);
@@ -0,0 +1,2 @@
+-- V3 перенесла строковые хиты в hits, а непереносимые в hits_v1_rejected
+DROP TABLE hits_v1;
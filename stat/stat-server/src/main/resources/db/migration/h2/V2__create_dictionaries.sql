@@ -0,0 +1,76 @@
+-- хиты в строковом виде переносит V3, hits_v1 удаляется отдельной миграцией V4 после успешного переноса
+ALTER TABLE hits RENAME TO hits_v1;
+
+-- справочники повторяющихся строк хитов
+CREATE TABLE apps
+(
+    id   INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(80) NOT NULL UNIQUE
+);
+
+CREATE TABLE uris
+(
+    id  INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    uri VARCHAR(255) NOT NULL UNIQUE
+);
+
+INSERT INTO apps (name) SELECT DISTINCT app FROM hits_v1;
+INSERT INTO uris (uri) SELECT DISTINCT uri FROM hits_v1;
+
+-- старые хиты, которые нельзя перенести в hits (нет времени или ip не разбирается как адрес), остаются здесь как есть
+CREATE TABLE hits_v1_rejected
+(
+    id           BIGINT PRIMARY KEY,
+    app          VARCHAR(80)  NOT NULL,
+    uri          VARCHAR(255) NOT NULL,
+    ip           VARCHAR(45)  NOT NULL,
+    request_time TIMESTAMP WITHOUT TIME ZONE,
+    reason       VARCHAR(20)  NOT NULL
+);
+
+CREATE TABLE hits
+(
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    app_id       INTEGER                     NOT NULL,
+    uri_id       INTEGER                     NOT NULL,
+    -- 4 байта для IPv4, 16 для IPv6
+    ip           VARBINARY(16)               NOT NULL,
+    request_time TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+-- индексы hits создает V5 (CreateHitIndexesMigration) после переноса старых хитов
+
+CREATE TABLE hits_minute
+(
+    app_id INTEGER                     NOT NULL,
+    uri_id INTEGER                     NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits   BIGINT                      NOT NULL,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+
+CREATE INDEX hits_minute_bucket_idx ON hits_minute (bucket);
+
+CREATE TABLE hits_hour
+(
+    app_id    INTEGER                     NOT NULL,
+    uri_id    INTEGER                     NOT NULL,
+    bucket    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits      BIGINT                      NOT NULL,
+    ip_sketch BYTEA,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+
+CREATE INDEX hits_hour_bucket_idx ON hits_hour (bucket);
+
+CREATE TABLE hits_day
+(
+    app_id    INTEGER                     NOT NULL,
+    uri_id    INTEGER                     NOT NULL,
+    bucket    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits      BIGINT                      NOT NULL,
+    ip_sketch BYTEA,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+
+CREATE INDEX hits_day_bucket_idx ON hits_day (bucket);
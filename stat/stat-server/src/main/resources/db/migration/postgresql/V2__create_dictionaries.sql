@@ -0,0 +1,100 @@
+-- хиты в строковом виде переносит V3, hits_v1 удаляется отдельной миграцией V4 после успешного переноса
+ALTER TABLE hits RENAME TO hits_v1;
+ALTER INDEX hits_pkey RENAME TO hits_v1_pkey;
+
+-- справочники повторяющихся строк хитов
+CREATE TABLE apps
+(
+    id   INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(80) NOT NULL UNIQUE
+);
+
+CREATE TABLE uris
+(
+    id  INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    uri VARCHAR(255) NOT NULL UNIQUE
+);
+
+INSERT INTO apps (name) SELECT DISTINCT app FROM hits_v1;
+INSERT INTO uris (uri) SELECT DISTINCT uri FROM hits_v1;
+
+-- старые хиты, которые нельзя перенести в hits (нет времени или ip не разбирается как адрес), остаются здесь как есть
+CREATE TABLE hits_v1_rejected
+(
+    id           BIGINT PRIMARY KEY,
+    app          VARCHAR(80)  NOT NULL,
+    uri          VARCHAR(255) NOT NULL,
+    ip           VARCHAR(45)  NOT NULL,
+    request_time TIMESTAMP WITHOUT TIME ZONE,
+    reason       VARCHAR(20)  NOT NULL
+);
+
+-- поиск uri по префиксу (LIKE 'prefix%') независимо от правил сортировки базы
+CREATE INDEX uris_uri_pattern_idx ON uris (uri varchar_pattern_ops);
+
+-- помесячные секции создает и удаляет HitPartitionService, в секцию по умолчанию попадают хиты вне созданных месяцев
+CREATE TABLE hits
+(
+    id           BIGSERIAL,
+    app_id       INTEGER                     NOT NULL,
+    uri_id       INTEGER                     NOT NULL,
+    -- 4 байта для IPv4, 16 для IPv6
+    ip           BYTEA                       NOT NULL,
+    request_time TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    PRIMARY KEY (id, request_time)
+) PARTITION BY RANGE (request_time);
+
+CREATE TABLE hits_default PARTITION OF hits DEFAULT;
+
+-- секции за месяцы старых хитов, чтобы перенесенные хиты не остались в секции по умолчанию
+DO
+$$
+    DECLARE
+        month DATE;
+    BEGIN
+        FOR month IN SELECT DISTINCT CAST(date_trunc('month', request_time) AS DATE)
+                     FROM hits_v1
+                     WHERE request_time IS NOT NULL
+            LOOP
+                EXECUTE format('CREATE TABLE %I PARTITION OF hits FOR VALUES FROM (%L) TO (%L)',
+                               to_char(month, '"hits_y"YYYY"m"MM'), month, month + INTERVAL '1 month');
+            END LOOP;
+    END
+$$;
+
+-- индексы hits создает V5 (CreateHitIndexesMigration) после переноса старых хитов
+
+CREATE TABLE hits_minute
+(
+    app_id INTEGER                     NOT NULL,
+    uri_id INTEGER                     NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits   BIGINT                      NOT NULL,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+
+CREATE INDEX hits_minute_bucket_idx ON hits_minute (bucket);
+
+CREATE TABLE hits_hour
+(
+    app_id    INTEGER                     NOT NULL,
+    uri_id    INTEGER                     NOT NULL,
+    bucket    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits      BIGINT                      NOT NULL,
+    ip_sketch BYTEA,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+
+CREATE INDEX hits_hour_bucket_idx ON hits_hour (bucket);
+
+CREATE TABLE hits_day
+(
+    app_id    INTEGER                     NOT NULL,
+    uri_id    INTEGER                     NOT NULL,
+    bucket    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits      BIGINT                      NOT NULL,
+    ip_sketch BYTEA,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+
+CREATE INDEX hits_day_bucket_idx ON hits_day (bucket);
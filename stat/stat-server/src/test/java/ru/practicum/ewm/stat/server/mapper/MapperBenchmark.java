@@ -0,0 +1,69 @@
+package ru.practicum.ewm.stat.server.mapper;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.ewm.stat.dto.EndpointHitDto;
+import ru.practicum.ewm.stat.dto.ViewStatsDto;
+import ru.practicum.ewm.stat.server.model.EndpointHit;
+import ru.practicum.ewm.stat.server.model.ViewStats;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость отображения одного объекта в StatController: прежний ModelMapper против статических мапперов.
+ * Запуск с профилировщиком аллокаций:
+ * <pre>
+ * mvn -pl stat/stat-server -am test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp stat/stat-server/target/test-classes:stat/stat-server/target/classes:$(cat stat/stat-server/target/cp.txt) \
+ *     org.openjdk.jmh.Main MapperBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    private ModelMapper modelMapper;
+    private EndpointHitDto endpointHitDto;
+    private ViewStats viewStats;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        endpointHitDto = new EndpointHitDto("ewm-main-service", "/events/1", "192.163.0.1",
+                LocalDateTime.of(2024, 1, 1, 12, 0));
+        viewStats = new ViewStats("ewm-main-service", "/events/1", 42L);
+    }
+
+    @Benchmark
+    public EndpointHit hitModelMapper() {
+        return modelMapper.map(endpointHitDto, EndpointHit.class);
+    }
+
+    @Benchmark
+    public EndpointHit hitStaticMapper() {
+        return EndpointHitMapper.mapToEndpointHit(endpointHitDto);
+    }
+
+    @Benchmark
+    public ViewStatsDto viewStatsModelMapper() {
+        return modelMapper.map(viewStats, ViewStatsDto.class);
+    }
+
+    @Benchmark
+    public ViewStatsDto viewStatsStaticMapper() {
+        return ViewStatsMapper.mapToViewStatsDto(viewStats);
+    }
+}